@@ -0,0 +1,6 @@
+create table ITEM_CATALOG (
+	item_id VARCHAR(40) PRIMARY KEY,
+	weight DECIMAL(10,3),
+	warehouse VARCHAR(50),
+	shipping_class VARCHAR(20)
+);
@@ -0,0 +1,64 @@
+package com.linkedin.batch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
+import org.springframework.batch.item.json.JacksonJsonObjectMarshaller;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class AggregationBenchmark {
+
+    private static final int ORDERS = 10_000;
+
+    private List<TrackedOrder> trackedOrders;
+
+    private DelimitedLineAggregator<Order> csvLineAggregator;
+
+    private final JacksonJsonObjectMarshaller<TrackedOrder> jsonMarshaller = new JacksonJsonObjectMarshaller<>();
+
+    @Setup
+    public void setUp() {
+        OrderKeyedTrackingNumberGenerator generator = new OrderKeyedTrackingNumberGenerator(1);
+        trackedOrders = OrderFixtures.orders(ORDERS).stream().map(order -> {
+            TrackedOrder trackedOrder = new TrackedOrder(order);
+            trackedOrder.setTrackingNumber(generator.generate(order));
+            return trackedOrder;
+        }).collect(Collectors.toList());
+        csvLineAggregator = OrderFixtures.csvLineAggregator();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void csvLine(Blackhole blackhole) {
+        for (TrackedOrder trackedOrder : trackedOrders) {
+            blackhole.consume(csvLineAggregator.aggregate(trackedOrder));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void json(Blackhole blackhole) {
+        for (TrackedOrder trackedOrder : trackedOrders) {
+            blackhole.consume(jsonMarshaller.marshal(trackedOrder));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.linkedin.batch;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Reader -> processor -> writer over an in-memory list, without job repository or transactions.
+// One invocation is one chunk; run with -t to compare thread counts, items/ms is reported as the "items" counter.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Threads(1)
+public class ChunkLoopBenchmark {
+
+    private static final int ORDERS = 20_000;
+
+    @Param({"10", "100", "1000"})
+    public int chunkSize;
+
+    private List<Order> orders;
+
+    private ItemProcessor<Order, TrackedOrder> processor;
+
+    private ItemWriter<TrackedOrder> writer;
+
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ChunkCounters {
+
+        public long items;
+
+        private final List<TrackedOrder> outputs = new ArrayList<>();
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            items = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        orders = OrderFixtures.orders(ORDERS);
+        processor = OrderFixtures.compositeItemProcessor();
+        DelimitedLineAggregator<Order> lineAggregator = OrderFixtures.csvLineAggregator();
+        writer = items -> {
+            StringBuilder buffer = new StringBuilder(items.size() * 128);
+            for (TrackedOrder item : items) {
+                buffer.append(lineAggregator.aggregate(item)).append('\n');
+            }
+            if (buffer.length() == 0 && !items.isEmpty()) {
+                throw new IllegalStateException("Nothing was written");
+            }
+        };
+    }
+
+    @Benchmark
+    public void chunk(ChunkCounters counters) throws Exception {
+        int start = (cursor.getAndAdd(chunkSize) & Integer.MAX_VALUE) % ORDERS;
+        List<TrackedOrder> outputs = counters.outputs;
+        for (int i = 0; i < chunkSize; i++) {
+            TrackedOrder output = processor.process(orders.get((start + i) % ORDERS));
+            if (output != null) {
+                outputs.add(output);
+            }
+        }
+        writer.write(outputs);
+        outputs.clear();
+        counters.items += chunkSize;
+    }
+}
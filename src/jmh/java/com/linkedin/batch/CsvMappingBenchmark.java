@@ -0,0 +1,73 @@
+package com.linkedin.batch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class CsvMappingBenchmark {
+
+    private static final int ORDERS = 10_000;
+
+    private List<String> lines;
+
+    private Path file;
+
+    private DelimitedLineTokenizer tokenizer;
+
+    private OrderFieldSetMapper fieldSetMapper;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<Order> orders = OrderFixtures.orders(ORDERS);
+        lines = OrderFixtures.csvLines(orders);
+        file = OrderFixtures.csvFile(orders);
+        tokenizer = new DelimitedLineTokenizer();
+        tokenizer.setNames(LinkedinBatchApplication.tokens);
+        fieldSetMapper = new OrderFieldSetMapper();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void tokenizeAndMap(Blackhole blackhole) throws Exception {
+        for (String line : lines) {
+            blackhole.consume(fieldSetMapper.mapFieldSet(tokenizer.tokenize(line)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void memoryMappedRead(Blackhole blackhole) throws Exception {
+        MappedCsvOrderItemReader reader = new MappedCsvOrderItemReader();
+        reader.setName("benchmark");
+        reader.setResource(new FileSystemResource(file.toFile()));
+        reader.setLinesToSkip(1);
+        reader.open(new ExecutionContext());
+        Order order;
+        while ((order = reader.read()) != null) {
+            blackhole.consume(order);
+        }
+        reader.close();
+    }
+}
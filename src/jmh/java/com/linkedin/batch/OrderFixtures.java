@@ -0,0 +1,107 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
+import org.springframework.batch.item.support.builder.CompositeItemProcessorBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+final class OrderFixtures {
+
+    static final String HEADER = String.join(",", LinkedinBatchApplication.tokens);
+
+    private static final String[] ITEM_NAMES = {"Jeans", "Leggings", "Ski Coat", "Tank Top", "Stretch Pants", "Hoodie"};
+
+    private static final String[] DOMAINS = {"usda.gov", "tripadvisor.com", "cdc.gov", "archive.org", "elpais.com"};
+
+    private OrderFixtures() {
+    }
+
+    // Seeded so every run, and every release, benchmarks exactly the same data.
+    static List<Order> orders(int count) {
+        Random random = new Random(42);
+        List<Order> orders = new ArrayList<>(count);
+        String[] itemIds = new String[ITEM_NAMES.length];
+        for (int i = 0; i < itemIds.length; i++) {
+            itemIds[i] = new UUID(random.nextLong(), random.nextLong()).toString();
+        }
+        long firstShipDate = 1546300800000L;
+        for (int i = 0; i < count; i++) {
+            int item = random.nextInt(ITEM_NAMES.length);
+            Order order = new Order();
+            order.setOrderId((long) i + 1);
+            order.setFirstName("First" + random.nextInt(1000));
+            order.setLastName("Last" + random.nextInt(1000));
+            order.setEmail("user" + i + "@" + DOMAINS[random.nextInt(DOMAINS.length)]);
+            order.setCost(BigDecimal.valueOf(random.nextInt(10000), 2));
+            order.setItemId(itemIds[item]);
+            order.setItemName(ITEM_NAMES[item]);
+            order.setShipDate(new Date(firstShipDate + random.nextInt(365) * 86400000L));
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    // Every order tracked, unfiltered, so output benchmarks write exactly as many rows as they count.
+    static List<TrackedOrder> trackedOrders(List<Order> orders) throws Exception {
+        TrackedOrderItemProcessor processor = new TrackedOrderItemProcessor(new OrderKeyedTrackingNumberGenerator(1));
+        processor.setFailureRate(0);
+        List<TrackedOrder> trackedOrders = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            TrackedOrder trackedOrder = processor.process(order);
+            trackedOrder.setFreeShipping(trackedOrder.getCost().compareTo(new BigDecimal("80")) > 0);
+            trackedOrders.add(trackedOrder);
+        }
+        return trackedOrders;
+    }
+
+    static List<String> csvLines(List<Order> orders) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        List<String> lines = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            lines.add(order.getOrderId() + "," + order.getFirstName() + "," + order.getLastName() + ","
+                    + order.getEmail() + "," + order.getCost() + "," + order.getItemId() + ","
+                    + order.getItemName() + "," + dateFormat.format(order.getShipDate()));
+        }
+        return lines;
+    }
+
+    static Path csvFile(List<Order> orders) throws IOException {
+        Path file = Files.createTempFile("shipped_orders", ".csv");
+        file.toFile().deleteOnExit();
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        lines.addAll(csvLines(orders));
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    static ItemProcessor<Order, TrackedOrder> compositeItemProcessor() throws Exception {
+        CompiledValidatingItemProcessor<Order> validatingItemProcessor = new CompiledValidatingItemProcessor<>(Order.class);
+        validatingItemProcessor.setFilter(true);
+
+        TrackedOrderItemProcessor trackedOrderItemProcessor = new TrackedOrderItemProcessor(new OrderKeyedTrackingNumberGenerator(1));
+        trackedOrderItemProcessor.setFailureRate(0);
+
+        return new CompositeItemProcessorBuilder<Order, TrackedOrder>()
+                .delegates(validatingItemProcessor, trackedOrderItemProcessor, new FreeShippingItemProcessor())
+                .build();
+    }
+
+    static DelimitedLineAggregator<Order> csvLineAggregator() {
+        DelimitedLineAggregator<Order> lineAggregator = new DelimitedLineAggregator<>();
+        lineAggregator.setDelimiter(",");
+        lineAggregator.setFieldExtractor(new GeneratedFieldExtractor<>(Order.class, LinkedinBatchApplication.names));
+        return lineAggregator;
+    }
+}
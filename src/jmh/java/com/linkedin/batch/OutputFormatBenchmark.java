@@ -0,0 +1,109 @@
+package com.linkedin.batch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.json.JacksonJsonObjectMarshaller;
+import org.springframework.batch.item.json.JacksonJsonObjectReader;
+import org.springframework.batch.item.json.JsonFileItemWriter;
+import org.springframework.batch.item.json.JsonItemReader;
+import org.springframework.batch.item.json.builder.JsonFileItemWriterBuilder;
+import org.springframework.batch.item.json.builder.JsonItemReaderBuilder;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class OutputFormatBenchmark {
+
+    private static final int ORDERS = 10_000;
+
+    private List<TrackedOrder> trackedOrders;
+
+    private Path jsonFile;
+
+    private Path columnarFile;
+
+    @Setup
+    public void setUp() throws Exception {
+        trackedOrders = OrderFixtures.trackedOrders(OrderFixtures.orders(ORDERS));
+        jsonFile = Files.createTempFile("shipped_orders_output", ".json");
+        jsonFile.toFile().deleteOnExit();
+        columnarFile = Files.createTempFile("shipped_orders_output", ".ordc");
+        columnarFile.toFile().deleteOnExit();
+        writeJson();
+        writeColumnar();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void writeJson() throws Exception {
+        JsonFileItemWriter<TrackedOrder> writer = new JsonFileItemWriterBuilder<TrackedOrder>()
+                .jsonObjectMarshaller(new JacksonJsonObjectMarshaller<>())
+                .resource(new FileSystemResource(jsonFile.toFile()))
+                .name("benchmark")
+                .build();
+        writer.open(new ExecutionContext());
+        writer.write(trackedOrders);
+        writer.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void writeColumnar() throws Exception {
+        ColumnarOrderItemWriter writer = new ColumnarOrderItemWriter();
+        writer.setName("benchmark");
+        writer.setResource(new FileSystemResource(columnarFile.toFile()));
+        writer.open(new ExecutionContext());
+        writer.write(trackedOrders);
+        writer.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void readJson(Blackhole blackhole) throws Exception {
+        JsonItemReader<TrackedOrder> reader = new JsonItemReaderBuilder<TrackedOrder>()
+                .jsonObjectReader(new JacksonJsonObjectReader<>(TrackedOrder.class))
+                .resource(new FileSystemResource(jsonFile.toFile()))
+                .name("benchmark")
+                .build();
+        reader.open(new ExecutionContext());
+        TrackedOrder order;
+        while ((order = reader.read()) != null) {
+            blackhole.consume(order);
+        }
+        reader.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void readColumnar(Blackhole blackhole) throws Exception {
+        ColumnarOrderItemReader reader = new ColumnarOrderItemReader();
+        reader.setName("benchmark");
+        reader.setResource(new FileSystemResource(columnarFile.toFile()));
+        reader.open(new ExecutionContext());
+        TrackedOrder order;
+        while ((order = reader.read()) != null) {
+            blackhole.consume(order);
+        }
+        reader.close();
+    }
+}
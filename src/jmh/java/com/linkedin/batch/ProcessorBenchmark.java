@@ -0,0 +1,104 @@
+package com.linkedin.batch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.validator.BeanValidatingItemProcessor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class ProcessorBenchmark {
+
+    private static final int ORDERS = 10_000;
+
+    private List<Order> orders;
+
+    private TrackedOrder[] trackedOrders;
+
+    private ItemProcessor<Order, Order> validatingItemProcessor;
+
+    private ItemProcessor<Order, Order> compiledValidatingItemProcessor;
+
+    private TrackedOrderItemProcessor trackedOrderItemProcessor;
+
+    private final FreeShippingItemProcessor freeShippingItemProcessor = new FreeShippingItemProcessor();
+
+    private ItemProcessor<Order, TrackedOrder> compositeItemProcessor;
+
+    @Setup
+    public void setUp() throws Exception {
+        orders = OrderFixtures.orders(ORDERS);
+        trackedOrders = orders.stream().map(TrackedOrder::new).toArray(TrackedOrder[]::new);
+
+        BeanValidatingItemProcessor<Order> beanValidatingItemProcessor = new BeanValidatingItemProcessor<>();
+        beanValidatingItemProcessor.setFilter(true);
+        beanValidatingItemProcessor.afterPropertiesSet();
+        validatingItemProcessor = beanValidatingItemProcessor;
+
+        CompiledValidatingItemProcessor<Order> compiledProcessor = new CompiledValidatingItemProcessor<>(Order.class);
+        compiledProcessor.setFilter(true);
+        compiledValidatingItemProcessor = compiledProcessor;
+
+        trackedOrderItemProcessor = new TrackedOrderItemProcessor(new OrderKeyedTrackingNumberGenerator(1));
+        trackedOrderItemProcessor.setFailureRate(0);
+
+        compositeItemProcessor = OrderFixtures.compositeItemProcessor();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void validation(Blackhole blackhole) throws Exception {
+        for (Order order : orders) {
+            blackhole.consume(validatingItemProcessor.process(order));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void compiledValidation(Blackhole blackhole) throws Exception {
+        for (Order order : orders) {
+            blackhole.consume(compiledValidatingItemProcessor.process(order));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void trackedOrderConversion(Blackhole blackhole) throws Exception {
+        for (Order order : orders) {
+            blackhole.consume(trackedOrderItemProcessor.process(order));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void freeShippingFilter(Blackhole blackhole) throws Exception {
+        for (TrackedOrder trackedOrder : trackedOrders) {
+            blackhole.consume(freeShippingItemProcessor.process(trackedOrder));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void compositeProcessor(Blackhole blackhole) throws Exception {
+        for (Order order : orders) {
+            blackhole.consume(compositeItemProcessor.process(order));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.linkedin.batch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class RowMappingBenchmark {
+
+    private static final int ORDERS = 10_000;
+
+    private static final int[] SQL_TYPES = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DECIMAL,
+            Types.VARCHAR, Types.VARCHAR, Types.DATE};
+
+    private CachedRowSet resultSet;
+
+    private final RowMapper<Order> orderRowMapper = new OrderRowMapper();
+
+    private final RowMapper<Order> beanPropertyRowMapper = new BeanPropertyRowMapper<>(Order.class);
+
+    @Setup
+    public void setUp() throws Exception {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(SQL_TYPES.length);
+        for (int i = 0; i < SQL_TYPES.length; i++) {
+            metaData.setColumnName(i + 1, LinkedinBatchApplication.tokens[i]);
+            metaData.setColumnLabel(i + 1, LinkedinBatchApplication.tokens[i]);
+            metaData.setColumnType(i + 1, SQL_TYPES[i]);
+        }
+        resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(metaData);
+        for (Order order : OrderFixtures.orders(ORDERS)) {
+            resultSet.moveToInsertRow();
+            resultSet.updateLong(1, order.getOrderId());
+            resultSet.updateString(2, order.getFirstName());
+            resultSet.updateString(3, order.getLastName());
+            resultSet.updateString(4, order.getEmail());
+            resultSet.updateBigDecimal(5, order.getCost());
+            resultSet.updateString(6, order.getItemId());
+            resultSet.updateString(7, order.getItemName());
+            resultSet.updateDate(8, new java.sql.Date(order.getShipDate().getTime()));
+            resultSet.insertRow();
+            resultSet.moveToCurrentRow();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void orderRowMapper(Blackhole blackhole) throws Exception {
+        map(orderRowMapper, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void beanPropertyRowMapper(Blackhole blackhole) throws Exception {
+        map(beanPropertyRowMapper, blackhole);
+    }
+
+    private void map(RowMapper<Order> rowMapper, Blackhole blackhole) throws Exception {
+        resultSet.beforeFirst();
+        int row = 0;
+        while (resultSet.next()) {
+            blackhole.consume(rowMapper.mapRow(resultSet, row++));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.linkedin.batch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class TrackingNumberGeneratorBenchmark {
+
+    private static final AtomicLong THREAD_OFFSETS = new AtomicLong();
+
+    private final TrackingNumberGenerator uuid = new UuidTrackingNumberGenerator();
+
+    private final TrackingNumberGenerator orderKeyed = new OrderKeyedTrackingNumberGenerator(1);
+
+    @State(Scope.Thread)
+    public static class ThreadOrders {
+
+        private final Order order = new Order();
+
+        private long nextOrderId = THREAD_OFFSETS.getAndIncrement() << 40;
+
+        Order next() {
+            order.setOrderId(nextOrderId++);
+            return order;
+        }
+    }
+
+    @Benchmark
+    public String uuid(ThreadOrders orders) {
+        return uuid.generate(orders.next());
+    }
+
+    @Benchmark
+    public String orderKeyed(ThreadOrders orders) {
+        return orderKeyed.generate(orders.next());
+    }
+}
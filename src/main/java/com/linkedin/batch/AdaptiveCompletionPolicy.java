@@ -0,0 +1,205 @@
+package com.linkedin.batch;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+
+// Sizes chunks from their measured write+commit latency: grows while the per-item latency keeps
+// falling, steps back once it rises, and never lets a chunk run past the target duration. The size is
+// one value shared by every thread of the step, and each thread's observations move it. A rollback
+// halves it and drops the latency baseline. A committed chunk whose failed attempts (retry onError
+// calls) exceed retryStormRatio times the items it wrote also halves it, but leaves the baseline
+// alone: that chunk's timing says more about the failures than about its size.
+public class AdaptiveCompletionPolicy extends CompletionPolicySupport
+        implements ChunkListener, ItemWriteListener<Object>, RetryListener {
+
+    private static final double GROWTH_FACTOR = 1.25;
+
+    private static final double SMOOTHING = 0.3;
+
+    private final ThreadLocal<ChunkStats> chunkStats = ThreadLocal.withInitial(ChunkStats::new);
+
+    private final AtomicInteger chunkSize = new AtomicInteger();
+
+    // Smoothed per-item write+commit latency in nanoseconds, as double bits; 0 means no baseline yet.
+    private final AtomicLong itemLatency = new AtomicLong();
+
+    private int minChunkSize = 10;
+
+    private int maxChunkSize = 5000;
+
+    private long targetChunkNanos = TimeUnit.SECONDS.toNanos(2);
+
+    private double retryStormRatio = 0.1;
+
+    public AdaptiveCompletionPolicy(String stepName, MeterRegistry registry) {
+        Gauge.builder("batch.chunk.size", chunkSize, AtomicInteger::get)
+                .tag("step", stepName)
+                .register(registry);
+    }
+
+    public void setMinChunkSize(int minChunkSize) {
+        this.minChunkSize = minChunkSize;
+    }
+
+    public void setMaxChunkSize(int maxChunkSize) {
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    public void setTargetChunkDuration(long duration, TimeUnit unit) {
+        this.targetChunkNanos = unit.toNanos(duration);
+    }
+
+    public void setRetryStormRatio(double retryStormRatio) {
+        this.retryStormRatio = retryStormRatio;
+    }
+
+    public int getChunkSize() {
+        return currentSize();
+    }
+
+    @Override
+    public RepeatContext start(RepeatContext parent) {
+        return new SizedRepeatContext(parent, currentSize());
+    }
+
+    // The step only passes back contexts from start(), which fix the size when the chunk begins, so a
+    // resize by another thread never changes a chunk in flight; any other context is a misuse.
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return context.getStartedCount() >= ((SizedRepeatContext) context).size;
+    }
+
+    private int currentSize() {
+        int size = chunkSize.get();
+        if (size == 0) {
+            chunkSize.compareAndSet(0, minChunkSize);
+            size = chunkSize.get();
+        }
+        return size;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        ChunkStats stats = chunkStats.get();
+        stats.chunkStart = System.nanoTime();
+        stats.writeStart = 0;
+        stats.items = 0;
+        stats.retries = 0;
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        ChunkStats stats = chunkStats.get();
+        if (stats.items == 0 || stats.writeStart == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long chunkNanos = now - stats.chunkStart;
+        // afterChunk runs once the transaction has committed, so this covers write and commit.
+        double perItem = (double) (now - stats.writeStart) / stats.items;
+
+        if (stats.retries > stats.items * retryStormRatio) {
+            shrink(0.5);
+            return;
+        }
+        if (chunkNanos > targetChunkNanos) {
+            shrink(Math.max(0.5, (double) targetChunkNanos / chunkNanos));
+            itemLatency.set(0);
+            return;
+        }
+
+        double baseline = Double.longBitsToDouble(itemLatency.get());
+        if (baseline == 0 || perItem < baseline * 0.98) {
+            // Still amortising round trips; grow, but not past what the target duration allows.
+            double projected = (double) targetChunkNanos / chunkNanos;
+            resize(size -> Math.max(size + 1, (int) (size * Math.min(GROWTH_FACTOR, projected))));
+        } else if (perItem > baseline * 1.1) {
+            // Latency per item is rising with size: we are past the knee, step back.
+            shrink(1 / GROWTH_FACTOR);
+        }
+        double smoothed = baseline == 0 ? perItem : baseline + SMOOTHING * (perItem - baseline);
+        itemLatency.set(Double.doubleToRawLongBits(smoothed));
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        shrink(0.5);
+        itemLatency.set(0);
+    }
+
+    private void shrink(double factor) {
+        resize(size -> (int) (size * factor));
+    }
+
+    private void resize(IntUnaryOperator resizer) {
+        chunkSize.updateAndGet(size -> Math.max(minChunkSize,
+                Math.min(maxChunkSize, resizer.applyAsInt(size == 0 ? minChunkSize : size))));
+    }
+
+    @Override
+    public void beforeWrite(List<?> items) {
+        ChunkStats stats = chunkStats.get();
+        if (stats.writeStart == 0) {
+            stats.writeStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterWrite(List<?> items) {
+        chunkStats.get().items += items.size();
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<?> items) {
+    }
+
+    @Override
+    public <T, E extends Throwable> boolean open(RetryContext retryContext, RetryCallback<T, E> retryCallback) {
+        return true;
+    }
+
+    @Override
+    public <T, E extends Throwable> void close(RetryContext retryContext, RetryCallback<T, E> retryCallback, Throwable throwable) {
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext retryContext, RetryCallback<T, E> retryCallback, Throwable throwable) {
+        chunkStats.get().retries++;
+    }
+
+    private static class SizedRepeatContext extends RepeatContextSupport {
+
+        private final int size;
+
+        private SizedRepeatContext(RepeatContext parent, int size) {
+            super(parent);
+            this.size = size;
+        }
+    }
+
+    private static class ChunkStats {
+
+        private long chunkStart;
+
+        private long writeStart;
+
+        private int items;
+
+        private int retries;
+    }
+}
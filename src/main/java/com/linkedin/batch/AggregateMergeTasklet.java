@@ -0,0 +1,115 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Second half of the sort/aggregate step: k-way merges the runs a SpillingAggregationItemWriter
+// promoted to the job ExecutionContext and hands the totals, in key order, to a downstream writer.
+// Only one record per run is in memory at a time. A restart rewrites the output from the start.
+// Once the step has completed, the runs' directory is deleted, with the job instance's directory
+// above it when nothing else is left there; register the tasklet as a listener of its step.
+public class AggregateMergeTasklet implements Tasklet, StepExecutionListener {
+
+    private final String runsKey;
+
+    private final ItemWriter<OrderAggregate> writer;
+
+    private int chunkSize = 1000;
+
+    public AggregateMergeTasklet(String runsKey, ItemWriter<OrderAggregate> writer) {
+        this.runsKey = runsKey;
+        this.writer = writer;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        ExecutionContext jobContext = chunkContext.getStepContext().getStepExecution().getJobExecution().getExecutionContext();
+        if (writer instanceof ItemStream) {
+            ((ItemStream) writer).open(new ExecutionContext());
+        }
+        try {
+            List<OrderAggregate> chunk = new ArrayList<>(chunkSize);
+            SpillingAggregationItemWriter.merge(SpillingAggregationItemWriter.parseRuns(jobContext.getString(runsKey, "")),
+                    (key, count, sum) -> {
+                        chunk.add(new OrderAggregate(SpillingAggregationItemWriter.dimension(key),
+                                SpillingAggregationItemWriter.value(key), count, sum));
+                        if (chunk.size() == chunkSize) {
+                            write(chunk, contribution);
+                        }
+                    });
+            write(chunk, contribution);
+        } finally {
+            if (writer instanceof ItemStream) {
+                ((ItemStream) writer).close();
+            }
+        }
+        return RepeatStatus.FINISHED;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (stepExecution.getStatus() != BatchStatus.COMPLETED) {
+            return null;
+        }
+        ExecutionContext jobContext = stepExecution.getJobExecution().getExecutionContext();
+        Set<Path> directories = new LinkedHashSet<>();
+        for (Path run : SpillingAggregationItemWriter.parseRuns(jobContext.getString(runsKey, ""))) {
+            directories.add(run.toAbsolutePath().getParent());
+        }
+        try {
+            for (Path directory : directories) {
+                // Every file there is a run of this writer and job instance, including runs merged away.
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                    for (Path file : files) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(directory);
+                try {
+                    Files.deleteIfExists(directory.getParent());
+                } catch (DirectoryNotEmptyException e) {
+                    // Another writer of the same job instance still has runs there.
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to delete merged runs of " + runsKey, e);
+        }
+        return null;
+    }
+
+    private void write(List<OrderAggregate> chunk, StepContribution contribution) throws Exception {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        writer.write(chunk);
+        contribution.incrementWriteCount(chunk.size());
+        chunk.clear();
+    }
+}
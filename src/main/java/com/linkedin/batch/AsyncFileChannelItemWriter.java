@@ -0,0 +1,495 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.WriteFailedException;
+import org.springframework.batch.item.file.transform.LineAggregator;
+import org.springframework.core.io.Resource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Writes items to a file through a FileChannel owned by one drain thread. Chunk threads format their
+// items and put the bytes on a bounded ring; the drain thread writes whatever has piled up in one
+// go and forces it, and write() returns once its chunk is on disk, so every chunk thread shares the
+// same few fsyncs. The checkpoint is a byte offset that stops below any chunk still uncommitted.
+// Chunks share the file in the order they were drained, so a rolled-back chunk may already have
+// later chunks behind it and cannot be cut off: it is blanked in place with spaces, line breaks
+// kept. JSON parsers skip that whitespace; line readers see the lines, so for line-oriented output
+// set a rolledBackLinePrefix the reader treats as a comment, such as "#" for FlatFileItemReader,
+// otherwise a reader has to skip blank lines itself. The file is not compacted, because restart
+// offsets point into it.
+// File I/O under the chunk bookkeeping lock uses a ReentrantLock rather than a monitor, so chunk
+// threads that are virtual threads unmount while they wait instead of pinning their carrier.
+public class AsyncFileChannelItemWriter<T extends Order> extends ItemStreamSupport implements ItemStreamWriter<T> {
+
+    private static final String WRITTEN_BYTES = "writtenBytes";
+
+    private static final String HAS_ITEMS = "hasItems";
+
+    private static final int SCAN_BUFFER_SIZE = 1 << 16;
+
+    private static final PendingChunk SHUTDOWN = new PendingChunk(null, Long.MAX_VALUE);
+
+    private Resource resource;
+
+    private LineAggregator<T> lineAggregator;
+
+    private Charset charset = StandardCharsets.UTF_8;
+
+    private String header = "";
+
+    private String itemSeparator = "";
+
+    private String footer = "";
+
+    private int ringCapacity = 64;
+
+    private boolean bestEffortOrdering;
+
+    private String rolledBackLinePrefix = "";
+
+    private boolean saveState = true;
+
+    private BlockingQueue<PendingChunk> ring;
+
+    private FileChannel channel;
+
+    private ByteBuffer outputBuffer = ByteBuffer.allocateDirect(1 << 20);
+
+    private byte[] separatorBytes;
+
+    private byte[] rolledBackLinePrefixBytes;
+
+    // Items the file held below the restart position, which the chunks written since come after.
+    private boolean itemsBeforeStart;
+
+    // By start offset: chunks written but not yet committed or rolled back, and the lowest committed
+    // chunk. Guarded by lock, which the drain thread holds while it writes.
+    private final TreeMap<Long, PendingChunk> chunks = new TreeMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile long durablePosition;
+
+    private volatile IOException failure;
+
+    private Thread writerThread;
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    public void setLineAggregator(LineAggregator<T> lineAggregator) {
+        this.lineAggregator = lineAggregator;
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    public void setItemSeparator(String itemSeparator) {
+        this.itemSeparator = itemSeparator;
+    }
+
+    public void setFooter(String footer) {
+        this.footer = footer;
+    }
+
+    public void setRingCapacity(int ringCapacity) {
+        this.ringCapacity = ringCapacity;
+    }
+
+    // Sorts each chunk by order id, and the chunks the drain thread picks up together by their first
+    // order id. Chunks drained apart stay in arrival order, so the file is only roughly ordered.
+    public void setBestEffortOrdering(boolean bestEffortOrdering) {
+        this.bestEffortOrdering = bestEffortOrdering;
+    }
+
+    // Written over the start of each line of a rolled-back chunk, e.g. "#" for FlatFileItemReader comments.
+    public void setRolledBackLinePrefix(String rolledBackLinePrefix) {
+        this.rolledBackLinePrefix = rolledBackLinePrefix;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        String key = getExecutionContextKey(WRITTEN_BYTES);
+        String hasItemsKey = getExecutionContextKey(HAS_ITEMS);
+        byte[] headerBytes = header.getBytes(charset);
+        this.separatorBytes = itemSeparator.getBytes(charset);
+        this.rolledBackLinePrefixBytes = rolledBackLinePrefix.getBytes(charset);
+        try {
+            this.channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (executionContext.containsKey(key)) {
+                long restartPosition = executionContext.getLong(key);
+                channel.truncate(restartPosition);
+                channel.position(restartPosition);
+                this.itemsBeforeStart = executionContext.containsKey(hasItemsKey)
+                        ? (Boolean) executionContext.get(hasItemsKey) : restartPosition > headerBytes.length;
+            } else {
+                channel.truncate(0);
+                writeFully(ByteBuffer.wrap(headerBytes));
+                channel.force(false);
+                this.itemsBeforeStart = false;
+            }
+            this.durablePosition = channel.position();
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open " + resource, e);
+        }
+
+        this.chunks.clear();
+        this.failure = null;
+        this.ring = new ArrayBlockingQueue<>(ringCapacity);
+        this.writerThread = new Thread(this::drain, "async-file-writer-" + resource.getFilename());
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // The saved offset commits with the current chunk, so it may cover that chunk's own bytes but has to
+    // stop below the first chunk another thread has written and not yet committed, which may still roll back.
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (!saveState) {
+            return;
+        }
+        List<PendingChunk> own = currentChunks();
+        long position;
+        boolean hasItems;
+        lock.lock();
+        try {
+            position = durablePosition;
+            for (PendingChunk chunk : chunks.values()) {
+                if (!chunk.committed && !own.contains(chunk)) {
+                    position = Math.min(position, chunk.start);
+                    break;
+                }
+            }
+            hasItems = itemsBeforeStart || (!chunks.isEmpty() && chunks.firstKey() < position);
+        } finally {
+            lock.unlock();
+        }
+        executionContext.putLong(getExecutionContextKey(WRITTEN_BYTES), position);
+        executionContext.put(getExecutionContextKey(HAS_ITEMS), hasItems);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (this.writerThread == null) {
+            return;
+        }
+        try {
+            ring.put(SHUTDOWN);
+            writerThread.join();
+            if (failure == null) {
+                writeFully(ByteBuffer.wrap(footer.getBytes(charset)));
+                channel.force(false);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to close " + resource, e);
+        } finally {
+            this.writerThread = null;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        if (failure != null) {
+            throw new WriteFailedException("Output " + resource + " is no longer writable", failure);
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+
+        List<? extends T> chunk = items;
+        if (bestEffortOrdering) {
+            List<T> sorted = new ArrayList<>(items);
+            sorted.sort(Comparator.comparing(Order::getOrderId));
+            chunk = sorted;
+        }
+
+        // Formatting happens here, in parallel across worker threads; only raw bytes cross the ring.
+        byte[][] lines = new byte[chunk.size()][];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = lineAggregator.aggregate(chunk.get(i)).getBytes(charset);
+        }
+        PendingChunk pending = new PendingChunk(lines, chunk.get(0).getOrderId());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            currentTransactionChunks().add(pending);
+            ring.put(pending);
+        } else {
+            ring.put(pending);
+            awaitDurable(pending);
+            commit(pending);
+            return;
+        }
+        // Durable before the step's update() saves an offset covering it.
+        awaitDurable(pending);
+    }
+
+    private List<PendingChunk> currentChunks() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new ArrayList<>();
+        }
+        @SuppressWarnings("unchecked")
+        List<PendingChunk> own = (List<PendingChunk>) TransactionSynchronizationManager.getResource(this);
+        return own == null ? new ArrayList<>() : own;
+    }
+
+    // The chunks this writer was given in the current transaction, settled when it completes.
+    private List<PendingChunk> currentTransactionChunks() {
+        @SuppressWarnings("unchecked")
+        List<PendingChunk> own = (List<PendingChunk>) TransactionSynchronizationManager.getResource(this);
+        if (own == null) {
+            List<PendingChunk> bound = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(AsyncFileChannelItemWriter.this);
+                    for (PendingChunk chunk : bound) {
+                        if (status == STATUS_COMMITTED) {
+                            commit(chunk);
+                        } else {
+                            rollback(chunk);
+                        }
+                    }
+                }
+            });
+            own = bound;
+        }
+        return own;
+    }
+
+    // Keeps only the lowest committed chunk, which later rollbacks may still need as the first item.
+    private void commit(PendingChunk pending) {
+        lock.lock();
+        try {
+            pending.committed = true;
+            boolean lowestCommitted = false;
+            for (Iterator<PendingChunk> it = chunks.values().iterator(); it.hasNext(); ) {
+                PendingChunk chunk = it.next();
+                if (chunk.committed) {
+                    if (lowestCommitted) {
+                        it.remove();
+                    }
+                    lowestCommitted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Blanks the chunk as the class comment describes. If no item is left in front of it, the next
+    // chunk's leading separator goes too.
+    private void rollback(PendingChunk pending) {
+        try {
+            pending.durable.join();
+        } catch (CompletionException e) {
+            return;
+        }
+        lock.lock();
+        try {
+            pending.rolledBack = true;
+            if (pending.start < 0) {
+                return;
+            }
+            chunks.remove(pending.start);
+            blank(pending.start, pending.end, rolledBackLinePrefixBytes);
+            if (!itemsBeforeStart && chunks.lowerKey(pending.start) == null) {
+                Map.Entry<Long, PendingChunk> next = chunks.higherEntry(pending.start);
+                if (next != null && next.getValue().leadingSeparator) {
+                    blank(next.getKey(), next.getKey() + separatorBytes.length, new byte[0]);
+                    next.getValue().leadingSeparator = false;
+                }
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Overwrites everything but line breaks with spaces, and each line's first bytes with linePrefix.
+    // Chunks start on a line when items end in a line break and there is no separator.
+    private void blank(long from, long to, byte[] linePrefix) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SCAN_BUFFER_SIZE, to - from));
+        int column = 0;
+        for (long position = from; position < to; ) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), to - position));
+            channel.read(buffer, position);
+            buffer.flip();
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (bytes[i] == '\n' || bytes[i] == '\r') {
+                    column = 0;
+                } else {
+                    bytes[i] = column < linePrefix.length ? linePrefix[column] : (byte) ' ';
+                    column++;
+                }
+            }
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+    }
+
+    private void awaitDurable(PendingChunk pending) {
+        try {
+            pending.durable.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WriteFailedException("Interrupted while waiting for " + resource, e);
+        } catch (ExecutionException e) {
+            throw new WriteFailedException("Failed to write to " + resource, e.getCause());
+        }
+    }
+
+    private void drain() {
+        List<PendingChunk> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(ring.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            ring.drainTo(batch);
+            running = !batch.remove(SHUTDOWN);
+            if (bestEffortOrdering) {
+                batch.sort(Comparator.comparingLong(chunk -> chunk.firstOrderId));
+            }
+
+            try {
+                if (failure != null) {
+                    throw failure;
+                }
+                writeBatch(batch);
+                for (PendingChunk chunk : batch) {
+                    chunk.durable.complete(null);
+                }
+            } catch (IOException e) {
+                failure = e;
+                for (PendingChunk chunk : batch) {
+                    chunk.durable.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingChunk> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            outputBuffer.clear();
+            long position = channel.position();
+            for (PendingChunk chunk : batch) {
+                if (chunk.rolledBack) {
+                    continue;
+                }
+                chunk.start = position;
+                chunk.leadingSeparator = itemsBeforeStart || !chunks.isEmpty();
+                for (int i = 0; i < chunk.lines.length; i++) {
+                    if (i > 0 || chunk.leadingSeparator) {
+                        append(separatorBytes);
+                        position += separatorBytes.length;
+                    }
+                    append(chunk.lines[i]);
+                    position += chunk.lines[i].length;
+                }
+                chunk.end = position;
+                chunk.lines = null;
+                chunks.put(chunk.start, chunk);
+            }
+            outputBuffer.flip();
+            writeFully(outputBuffer);
+            channel.force(false);
+            durablePosition = channel.position();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        if (bytes.length > outputBuffer.remaining()) {
+            outputBuffer.flip();
+            writeFully(outputBuffer);
+            outputBuffer.clear();
+            if (bytes.length > outputBuffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+                return;
+            }
+        }
+        outputBuffer.put(bytes);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static class PendingChunk {
+
+        private byte[][] lines;
+
+        private final long firstOrderId;
+
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        private long start = -1;
+
+        private long end;
+
+        private boolean leadingSeparator;
+
+        private boolean committed;
+
+        private boolean rolledBack;
+
+        private PendingChunk(byte[][] lines, long firstOrderId) {
+            this.lines = lines;
+            this.firstOrderId = firstOrderId;
+        }
+    }
+}
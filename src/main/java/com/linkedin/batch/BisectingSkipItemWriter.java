@@ -0,0 +1,237 @@
+package com.linkedin.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.core.step.tasklet.TaskletStep;
+import org.springframework.batch.core.step.skip.LimitCheckingItemSkipPolicy;
+import org.springframework.batch.core.step.skip.SkipPolicy;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Finds the bad items of a failed write by bisection instead of the fault-tolerant step's scan,
+// which rolls the chunk back and writes it again one item per transaction. The failed list is
+// split in half and each half written again, recursing into the halves that fail; once the left
+// half of a failing list has gone through, the right half is known to fail and is split without
+// another attempt. k bad items in n cost about k*log2(n) writes, all in the chunk's transaction.
+// A single item that still fails is skipped if the skip policy allows it: it goes to the skip
+// listeners and counts as a write skip rather than a write. Failures the policy does not allow,
+// including a passed skip limit, propagate and fail the chunk as they would without this writer.
+// With a DataSource, every attempt runs under a savepoint of the chunk's transaction, so a failed
+// attempt leaves nothing behind; otherwise the delegate has to fail atomically per write call.
+// The delegate has to fail in write() itself: a writer that hands items to a background thread
+// reports its failures too late to be bisected.
+// Skips are recorded on the chunk's StepContribution once the whole write has gone through, so a
+// write that fails after all records nothing. The contribution is only reachable if the step's
+// tasklet is wrapped by recordContributions; without it the skip limit counts this write only and
+// the step counts skipped items as written.
+public class BisectingSkipItemWriter<T> extends ItemStreamSupport implements ItemStreamWriter<T>, ChunkListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(BisectingSkipItemWriter.class);
+
+    public static final String CONTRIBUTION = "bisectingSkipItemWriter.contribution";
+
+    // The chunk this thread is in, from beforeChunk until the chunk commits or rolls back.
+    private final ThreadLocal<ChunkContext> chunkContext = new ThreadLocal<>();
+
+    private final ItemWriter<T> delegate;
+
+    private SkipPolicy skipPolicy = new LimitCheckingItemSkipPolicy();
+
+    private List<SkipListener<?, ? super T>> skipListeners = Collections.emptyList();
+
+    private DataSource dataSource;
+
+    public BisectingSkipItemWriter(ItemWriter<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    // Typically the step's own limit and skippable exceptions, e.g.
+    // new LimitCheckingItemSkipPolicy(5, Collections.singletonMap(OrderProcessingException.class, true)).
+    public void setSkipPolicy(SkipPolicy skipPolicy) {
+        this.skipPolicy = skipPolicy;
+    }
+
+    public void setSkipListeners(List<SkipListener<?, ? super T>> skipListeners) {
+        this.skipListeners = skipListeners;
+    }
+
+    // The DataSource the delegate writes to, to roll failed attempts back to a savepoint.
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // Puts each transaction's StepContribution on its ChunkContext, where skip() finds it.
+    public static TaskletStep recordContributions(TaskletStep step) {
+        Tasklet tasklet = step.getTasklet();
+        step.setTasklet((contribution, context) -> {
+            context.setAttribute(CONTRIBUTION, contribution);
+            try {
+                return tasklet.execute(contribution, context);
+            } finally {
+                context.removeAttribute(CONTRIBUTION);
+            }
+        });
+        return step;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkContext.set(context);
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        chunkContext.remove();
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        chunkContext.remove();
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).open(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).close();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(List<? extends T> items) throws Exception {
+        Exception failure = attempt(items);
+        if (failure == null) {
+            return;
+        }
+        AtomicInteger attempts = new AtomicInteger(1);
+        List<Skip<T>> skipped = new ArrayList<>();
+        bisect(items, failure, attempts, skipped);
+        logger.info("Skipped {} of {} items in {} write attempts", skipped.size(), items.size(), attempts.get());
+        // The step applies a contribution even when its chunk rolls back, so nothing is recorded until
+        // every skip is known to be allowed; the chunk processor then counts all items as written.
+        StepContribution contribution = contribution();
+        if (contribution != null) {
+            for (int i = 0; i < skipped.size(); i++) {
+                contribution.incrementWriteSkipCount();
+            }
+            contribution.incrementWriteCount(-skipped.size());
+        }
+        for (Skip<T> skip : skipped) {
+            for (SkipListener<?, ? super T> listener : skipListeners) {
+                ((SkipListener<?, T>) listener).onSkipInWrite(skip.item, skip.failure);
+            }
+        }
+    }
+
+    private void bisect(List<? extends T> items, Exception failure, AtomicInteger attempts, List<Skip<T>> skipped) throws Exception {
+        if (items.size() == 1) {
+            skip(items.get(0), failure, skipped);
+            return;
+        }
+        int middle = items.size() / 2;
+        List<? extends T> left = items.subList(0, middle);
+        List<? extends T> right = items.subList(middle, items.size());
+        attempts.incrementAndGet();
+        Exception leftFailure = attempt(left);
+        if (leftFailure != null) {
+            bisect(left, leftFailure, attempts, skipped);
+            attempts.incrementAndGet();
+            Exception rightFailure = attempt(right);
+            if (rightFailure != null) {
+                bisect(right, rightFailure, attempts, skipped);
+            }
+        } else if (right.size() > 1) {
+            bisect(right, failure, attempts, skipped);
+        } else {
+            attempts.incrementAndGet();
+            Exception rightFailure = attempt(right);
+            if (rightFailure != null) {
+                skip(right.get(0), rightFailure, skipped);
+            }
+        }
+    }
+
+    // Null if the write went through; the failure, rolled back, if it is one the policy may skip.
+    private Exception attempt(List<? extends T> items) throws Exception {
+        Connection connection = null;
+        Savepoint savepoint = null;
+        if (dataSource != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+            connection = DataSourceUtils.getConnection(dataSource);
+            savepoint = connection.setSavepoint();
+        }
+        try {
+            delegate.write(items);
+        } catch (Exception e) {
+            if (savepoint != null) {
+                connection.rollback(savepoint);
+            }
+            if (!skipPolicy.shouldSkip(e, -1)) {
+                throw e;
+            }
+            return e;
+        }
+        if (savepoint != null) {
+            connection.releaseSavepoint(savepoint);
+        }
+        return null;
+    }
+
+    private void skip(T item, Exception failure, List<Skip<T>> skipped) throws Exception {
+        StepContribution contribution = contribution();
+        int skipCount = contribution == null ? skipped.size() : contribution.getStepSkipCount() + skipped.size();
+        if (!skipPolicy.shouldSkip(failure, skipCount)) {
+            throw failure;
+        }
+        skipped.add(new Skip<>(item, failure));
+    }
+
+    private StepContribution contribution() {
+        ChunkContext context = chunkContext.get();
+        return context == null ? null : (StepContribution) context.getAttribute(CONTRIBUTION);
+    }
+
+    private static class Skip<T> {
+
+        private final T item;
+
+        private final Exception failure;
+
+        private Skip(T item, Exception failure) {
+            this.item = item;
+            this.failure = failure;
+        }
+    }
+}
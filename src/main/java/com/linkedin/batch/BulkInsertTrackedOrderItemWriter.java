@@ -0,0 +1,248 @@
+package com.linkedin.batch;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Types;
+import java.text.SimpleDateFormat;
+import java.util.List;
+
+public class BulkInsertTrackedOrderItemWriter implements ItemWriter<TrackedOrder> {
+
+    public enum Mode {
+        MULTI_ROW,
+        LOAD_DATA
+    }
+
+    private static final String COLUMNS = "order_id, first_name, last_name, email, cost, item_id, item_name, ship_date, tracking_number, free_shipping";
+
+    private static final int COLUMN_COUNT = 10;
+
+    private static final String INSERT_PREFIX = "insert into TRACKED_ORDER(" + COLUMNS + ") values ";
+
+    private static final String ROW_PLACEHOLDERS = "(?,?,?,?,?,?,?,?,?,?)";
+
+    // The MySQL protocol caps a prepared statement at 65535 placeholders.
+    private static final int MAX_ROWS_PER_STATEMENT = 65535 / COLUMN_COUNT;
+
+    // Room for the statement text and packet header on top of the row values.
+    private static final int PACKET_OVERHEAD = 4096;
+
+    // MySQL's ER_DUP_ENTRY, which LOCAL loads report as a warning and skip the row.
+    private static final int DUPLICATE_ENTRY = 1062;
+
+    private static final String LOAD_DATA_SQL = "load data local infile 'tracked_orders.tsv' into table TRACKED_ORDER "
+            + "character set utf8mb4 fields terminated by '\\t' escaped by '\\\\' lines terminated by '\\n' (" + COLUMNS + ")";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private Mode mode = Mode.MULTI_ROW;
+
+    private volatile long maxAllowedPacket;
+
+    public BulkInsertTrackedOrderItemWriter(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public void setMaxAllowedPacket(long maxAllowedPacket) {
+        this.maxAllowedPacket = maxAllowedPacket;
+    }
+
+    @Override
+    public void write(List<? extends TrackedOrder> items) throws Exception {
+        if (items.isEmpty()) {
+            return;
+        }
+        // JdbcTemplate binds to the connection of the surrounding chunk transaction, so a
+        // rollback discards these rows exactly as it does for JdbcBatchItemWriter.
+        if (mode == Mode.LOAD_DATA) {
+            loadData(items);
+        } else {
+            insertMultiRow(items);
+        }
+    }
+
+    private void insertMultiRow(List<? extends TrackedOrder> items) {
+        long packetLimit = maxAllowedPacket() - PACKET_OVERHEAD;
+        int from = 0;
+        while (from < items.size()) {
+            int to = from;
+            long statementSize = INSERT_PREFIX.length();
+            while (to < items.size() && to - from < MAX_ROWS_PER_STATEMENT) {
+                long rowSize = estimateRowSize(items.get(to));
+                if (to > from && statementSize + rowSize > packetLimit) {
+                    break;
+                }
+                statementSize += rowSize;
+                to++;
+            }
+            insertRows(items.subList(from, to));
+            from = to;
+        }
+    }
+
+    private void insertRows(List<? extends TrackedOrder> rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows.size() * (ROW_PLACEHOLDERS.length() + 1));
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        int inserted = jdbcTemplate.update(sql.toString(), ps -> {
+            int index = 1;
+            for (TrackedOrder order : rows) {
+                index = bind(ps, index, order);
+            }
+        });
+        assertInserted(INSERT_PREFIX, inserted, rows.size());
+    }
+
+    private static int bind(PreparedStatement ps, int index, TrackedOrder order) throws SQLException {
+        if (order.getOrderId() == null) {
+            ps.setNull(index++, Types.INTEGER);
+        } else {
+            ps.setLong(index++, order.getOrderId());
+        }
+        ps.setString(index++, order.getFirstName());
+        ps.setString(index++, order.getLastName());
+        ps.setString(index++, order.getEmail());
+        ps.setBigDecimal(index++, order.getCost());
+        ps.setString(index++, order.getItemId());
+        ps.setString(index++, order.getItemName());
+        ps.setDate(index++, order.getShipDate() == null ? null : new Date(order.getShipDate().getTime()));
+        ps.setString(index++, order.getTrackingNumber());
+        ps.setBoolean(index++, order.isFreeShipping());
+        return index;
+    }
+
+    // Upper bound on the bytes a row adds once the driver inlines and escapes the values.
+    private static long estimateRowSize(TrackedOrder order) {
+        return ROW_PLACEHOLDERS.length() + 60
+                + quotedSize(order.getFirstName())
+                + quotedSize(order.getLastName())
+                + quotedSize(order.getEmail())
+                + quotedSize(order.getItemId())
+                + quotedSize(order.getItemName())
+                + quotedSize(order.getTrackingNumber())
+                + (order.getCost() == null ? 4 : order.getCost().precision() + 2);
+    }
+
+    private static long quotedSize(String value) {
+        return value == null ? 4 : 2L * 4 * value.length() + 2;
+    }
+
+    private long maxAllowedPacket() {
+        long packet = maxAllowedPacket;
+        if (packet == 0) {
+            Long serverValue = jdbcTemplate.queryForObject("select @@max_allowed_packet", Long.class);
+            packet = serverValue == null ? 4L << 20 : serverValue;
+            maxAllowedPacket = packet;
+        }
+        return packet;
+    }
+
+    private void loadData(List<? extends TrackedOrder> items) {
+        byte[] data = toTabSeparated(items);
+        Integer loaded = jdbcTemplate.execute((StatementCallback<Integer>) statement -> {
+            JdbcStatement mysqlStatement = statement.unwrap(JdbcStatement.class);
+            mysqlStatement.setLocalInfileInputStream(new ByteArrayInputStream(data));
+            try {
+                int rows = statement.executeUpdate(LOAD_DATA_SQL);
+                if (rows != items.size()) {
+                    throwDuplicateKey(statement.getWarnings());
+                }
+                return rows;
+            } finally {
+                mysqlStatement.setLocalInfileInputStream(null);
+            }
+        });
+        // LOCAL loads downgrade duplicate-key and conversion errors to warnings; treat a short load as a failure.
+        assertInserted(LOAD_DATA_SQL, loaded == null ? 0 : loaded, items.size());
+    }
+
+    private static byte[] toTabSeparated(List<? extends TrackedOrder> items) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        StringBuilder row = new StringBuilder(256);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(items.size() * 192);
+        for (TrackedOrder order : items) {
+            row.setLength(0);
+            appendField(row, order.getOrderId() == null ? null : order.getOrderId().toString()).append('\t');
+            appendField(row, order.getFirstName()).append('\t');
+            appendField(row, order.getLastName()).append('\t');
+            appendField(row, order.getEmail()).append('\t');
+            BigDecimal cost = order.getCost();
+            appendField(row, cost == null ? null : cost.toPlainString()).append('\t');
+            appendField(row, order.getItemId()).append('\t');
+            appendField(row, order.getItemName()).append('\t');
+            appendField(row, order.getShipDate() == null ? null : dateFormat.format(order.getShipDate())).append('\t');
+            appendField(row, order.getTrackingNumber()).append('\t');
+            row.append(order.isFreeShipping() ? '1' : '0').append('\n');
+            byte[] bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(bytes, 0, bytes.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static StringBuilder appendField(StringBuilder row, String value) {
+        if (value == null) {
+            return row.append("\\N");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    row.append("\\\\");
+                    break;
+                case '\t':
+                    row.append("\\t");
+                    break;
+                case '\n':
+                    row.append("\\n");
+                    break;
+                case '\r':
+                    row.append("\\r");
+                    break;
+                case '\0':
+                    row.append("\\0");
+                    break;
+                default:
+                    row.append(c);
+            }
+        }
+        return row;
+    }
+
+    // Raised as an insert would raise it, so skip policies for DataIntegrityViolationException apply to loads too.
+    private static void throwDuplicateKey(SQLWarning warnings) {
+        for (SQLWarning warning = warnings; warning != null; warning = warning.getNextWarning()) {
+            if (warning.getErrorCode() == DUPLICATE_ENTRY) {
+                throw new DuplicateKeyException("Load into TRACKED_ORDER skipped a duplicate row: " + warning.getMessage(), warning);
+            }
+        }
+    }
+
+    private static void assertInserted(String sql, int inserted, int expected) {
+        if (inserted != expected) {
+            throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(sql, expected, inserted);
+        }
+    }
+}
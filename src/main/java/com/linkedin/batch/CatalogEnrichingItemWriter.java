@@ -0,0 +1,135 @@
+package com.linkedin.batch;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Fills in catalog attributes on a chunk of TrackedOrders before the delegate writes them. The
+// chunk's distinct itemIds go to a size-bounded, expiring Caffeine cache shared by every chunk
+// thread; all of its misses are loaded together with one IN query per 1000 ids. Ids the catalog
+// does not know are cached as absent, so they are not queried again until they expire.
+public class CatalogEnrichingItemWriter extends ItemStreamSupport implements ItemStreamWriter<TrackedOrder> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogEnrichingItemWriter.class);
+
+    private static final String CATALOG_ITEMS_SQL =
+            "select item_id, weight, warehouse, shipping_class from ITEM_CATALOG where item_id in (:itemIds)";
+
+    private static final int MAX_IN_LIST = 1000;
+
+    private final ItemWriter<TrackedOrder> delegate;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final LoadingCache<String, Optional<CatalogItem>> catalog;
+
+    public CatalogEnrichingItemWriter(ItemWriter<TrackedOrder> delegate, DataSource dataSource,
+            long maximumSize, Duration timeToLive) {
+        this.delegate = delegate;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.catalog = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build(new CacheLoader<String, Optional<CatalogItem>>() {
+                    @Override
+                    public Optional<CatalogItem> load(String itemId) {
+                        return loadAll(Collections.singleton(itemId)).get(itemId);
+                    }
+
+                    @Override
+                    public Map<String, Optional<CatalogItem>> loadAll(Iterable<? extends String> itemIds) {
+                        return findCatalogItems(itemIds);
+                    }
+                });
+    }
+
+    // For hit/miss/eviction statistics, e.g. through CaffeineCacheMetrics.
+    public Cache<String, Optional<CatalogItem>> getCache() {
+        return catalog;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).open(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        logger.info("Item catalog cache: {} entries, {}", catalog.estimatedSize(), catalog.stats());
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).close();
+        }
+    }
+
+    @Override
+    public void write(List<? extends TrackedOrder> items) throws Exception {
+        Set<String> itemIds = new HashSet<>();
+        for (TrackedOrder item : items) {
+            if (item.getItemId() != null) {
+                itemIds.add(item.getItemId());
+            }
+        }
+        Map<String, Optional<CatalogItem>> catalogItems = catalog.getAll(itemIds);
+        for (TrackedOrder item : items) {
+            Optional<CatalogItem> catalogItem = item.getItemId() == null ? Optional.empty() : catalogItems.get(item.getItemId());
+            if (catalogItem.isPresent()) {
+                item.setWeight(catalogItem.get().getWeight());
+                item.setWarehouse(catalogItem.get().getWarehouse());
+                item.setShippingClass(catalogItem.get().getShippingClass());
+            }
+        }
+        delegate.write(items);
+    }
+
+    private Map<String, Optional<CatalogItem>> findCatalogItems(Iterable<? extends String> keys) {
+        List<String> itemIds = new ArrayList<>();
+        keys.forEach(itemIds::add);
+        Map<String, Optional<CatalogItem>> found = new HashMap<>();
+        for (int from = 0; from < itemIds.size(); from += MAX_IN_LIST) {
+            List<String> batch = itemIds.subList(from, Math.min(itemIds.size(), from + MAX_IN_LIST));
+            jdbcTemplate.query(CATALOG_ITEMS_SQL, Collections.singletonMap("itemIds", batch), resultSet -> {
+                CatalogItem catalogItem = new CatalogItem();
+                catalogItem.setItemId(resultSet.getString("item_id"));
+                catalogItem.setWeight(resultSet.getBigDecimal("weight"));
+                catalogItem.setWarehouse(resultSet.getString("warehouse"));
+                catalogItem.setShippingClass(resultSet.getString("shipping_class"));
+                found.put(catalogItem.getItemId(), Optional.of(catalogItem));
+            });
+        }
+        for (String itemId : itemIds) {
+            found.putIfAbsent(itemId, Optional.empty());
+        }
+        return found;
+    }
+}
@@ -0,0 +1,50 @@
+package com.linkedin.batch;
+
+import java.math.BigDecimal;
+
+public class CatalogItem {
+    private String itemId;
+
+    private BigDecimal weight;
+
+    private String warehouse;
+
+    private String shippingClass;
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(String itemId) {
+        this.itemId = itemId;
+    }
+
+    public BigDecimal getWeight() {
+        return weight;
+    }
+
+    public void setWeight(BigDecimal weight) {
+        this.weight = weight;
+    }
+
+    public String getWarehouse() {
+        return warehouse;
+    }
+
+    public void setWarehouse(String warehouse) {
+        this.warehouse = warehouse;
+    }
+
+    public String getShippingClass() {
+        return shippingClass;
+    }
+
+    public void setShippingClass(String shippingClass) {
+        this.shippingClass = shippingClass;
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogItem [itemId=" + itemId + ", weight=" + weight + ", warehouse=" + warehouse + ", shippingClass=" + shippingClass + "]";
+    }
+}
@@ -0,0 +1,234 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Defers per-chunk step execution and context updates and writes them through in batches.
+// Anything that ends, stops or fails a step flushes it first, so a restart always sees a consistent
+// checkpoint. A running execution is only written from its own step's calls: its chunk threads are
+// still changing it, so job-level and structural calls from other threads only flush executions
+// that have left the running state. The flush interval is checked when the step next updates, there
+// is no timer, so a step stalled inside a chunk keeps its last window unwritten until it moves on.
+// A crash between flushes replays up to one flush window of committed chunks, so only use it for
+// jobs whose writers tolerate that, such as the idempotent TRACKED_ORDER writer; a plain insert
+// writes those rows twice. Stop requests are also only seen when a step's updates are written.
+public class CoalescingJobRepository implements JobRepository {
+
+    private final JobRepository delegate;
+
+    private final Map<Long, PendingStepUpdate> pending = new ConcurrentHashMap<>();
+
+    private int maxDeferredChunks = 10;
+
+    private long flushIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+
+    public CoalescingJobRepository(JobRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setMaxDeferredChunks(int maxDeferredChunks) {
+        this.maxDeferredChunks = maxDeferredChunks;
+    }
+
+    public void setFlushInterval(long interval, TimeUnit unit) {
+        this.flushIntervalNanos = unit.toNanos(interval);
+    }
+
+    @Override
+    public void update(StepExecution stepExecution) {
+        if (mustWriteThrough(stepExecution)) {
+            writeThrough(stepExecution, () -> delegate.update(stepExecution));
+            return;
+        }
+        PendingStepUpdate update = pending.get(stepExecution.getId());
+        if (update == null) {
+            // The first update of a running step goes straight through so observers see it start.
+            delegate.update(stepExecution);
+            pending.putIfAbsent(stepExecution.getId(), new PendingStepUpdate(stepExecution));
+            return;
+        }
+        update.lock.lock();
+        try {
+            update.execution = true;
+            update.deferredChunks++;
+            if (update.deferredChunks >= maxDeferredChunks || System.nanoTime() - update.lastFlush >= flushIntervalNanos) {
+                write(update);
+            }
+        } finally {
+            update.lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateExecutionContext(StepExecution stepExecution) {
+        if (mustWriteThrough(stepExecution)) {
+            writeThrough(stepExecution, () -> delegate.updateExecutionContext(stepExecution));
+            return;
+        }
+        PendingStepUpdate update = pending.get(stepExecution.getId());
+        if (update == null) {
+            delegate.updateExecutionContext(stepExecution);
+            return;
+        }
+        update.lock.lock();
+        try {
+            update.context = true;
+        } finally {
+            update.lock.unlock();
+        }
+    }
+
+    private static boolean mustWriteThrough(StepExecution stepExecution) {
+        BatchStatus status = stepExecution.getStatus();
+        return stepExecution.getId() == null
+                || stepExecution.isTerminateOnly()
+                || status != BatchStatus.STARTED && status != BatchStatus.STARTING;
+    }
+
+    // Writes the deferred updates of executions that have left the running state; running ones are
+    // left to their own step.
+    public void flush() {
+        for (Map.Entry<Long, PendingStepUpdate> entry : pending.entrySet()) {
+            PendingStepUpdate update = entry.getValue();
+            if (mustWriteThrough(update.stepExecution)) {
+                update.lock.lock();
+                try {
+                    if (pending.remove(entry.getKey(), update)) {
+                        write(update);
+                    }
+                } finally {
+                    update.lock.unlock();
+                }
+            }
+        }
+    }
+
+    // The step is leaving the running state: write what it deferred, then the call itself, and stop
+    // tracking it. Holding the lock keeps a concurrent flush() from writing the same execution.
+    private void writeThrough(StepExecution stepExecution, Runnable call) {
+        PendingStepUpdate update = stepExecution.getId() == null ? null : pending.get(stepExecution.getId());
+        if (update == null) {
+            call.run();
+            return;
+        }
+        update.lock.lock();
+        try {
+            if (pending.remove(stepExecution.getId(), update)) {
+                write(update);
+            }
+            call.run();
+        } finally {
+            update.lock.unlock();
+        }
+    }
+
+    private void write(PendingStepUpdate update) {
+        // Same order as TaskletStep: context first, then the execution row with its new version.
+        if (update.context) {
+            delegate.updateExecutionContext(update.stepExecution);
+            update.context = false;
+        }
+        if (update.execution) {
+            delegate.update(update.stepExecution);
+            update.execution = false;
+        }
+        update.deferredChunks = 0;
+        update.lastFlush = System.nanoTime();
+    }
+
+    @Override
+    public void update(JobExecution jobExecution) {
+        flush();
+        delegate.update(jobExecution);
+    }
+
+    @Override
+    public void updateExecutionContext(JobExecution jobExecution) {
+        flush();
+        delegate.updateExecutionContext(jobExecution);
+    }
+
+    @Override
+    public void add(StepExecution stepExecution) {
+        flush();
+        delegate.add(stepExecution);
+    }
+
+    @Override
+    public void addAll(Collection<StepExecution> stepExecutions) {
+        flush();
+        delegate.addAll(stepExecutions);
+    }
+
+    @Override
+    public boolean isJobInstanceExists(String jobName, JobParameters jobParameters) {
+        return delegate.isJobInstanceExists(jobName, jobParameters);
+    }
+
+    @Override
+    public JobInstance createJobInstance(String jobName, JobParameters jobParameters) {
+        return delegate.createJobInstance(jobName, jobParameters);
+    }
+
+    @Override
+    public JobExecution createJobExecution(JobInstance jobInstance, JobParameters jobParameters, String jobConfigurationLocation) {
+        return delegate.createJobExecution(jobInstance, jobParameters, jobConfigurationLocation);
+    }
+
+    @Override
+    public JobExecution createJobExecution(String jobName, JobParameters jobParameters)
+            throws JobExecutionAlreadyRunningException, JobRestartException, JobInstanceAlreadyCompleteException {
+        return delegate.createJobExecution(jobName, jobParameters);
+    }
+
+    @Override
+    public StepExecution getLastStepExecution(JobInstance jobInstance, String stepName) {
+        flush();
+        return delegate.getLastStepExecution(jobInstance, stepName);
+    }
+
+    @Override
+    public int getStepExecutionCount(JobInstance jobInstance, String stepName) {
+        flush();
+        return delegate.getStepExecutionCount(jobInstance, stepName);
+    }
+
+    @Override
+    public JobExecution getLastJobExecution(String jobName, JobParameters jobParameters) {
+        flush();
+        return delegate.getLastJobExecution(jobName, jobParameters);
+    }
+
+    private static class PendingStepUpdate {
+
+        private final StepExecution stepExecution;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // The fields below are guarded by lock.
+        private long lastFlush = System.nanoTime();
+
+        private boolean execution;
+
+        private boolean context;
+
+        private int deferredChunks;
+
+        private PendingStepUpdate(StepExecution stepExecution) {
+            this.stepExecution = stepExecution;
+        }
+    }
+}
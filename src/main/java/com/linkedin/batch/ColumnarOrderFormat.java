@@ -0,0 +1,468 @@
+package com.linkedin.batch;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Block layout shared by ColumnarOrderItemWriter and ColumnarOrderItemReader. A file is a header
+// followed by self-contained blocks, so a block offset is always a valid restart point:
+//   file:  int magic, int version, block*
+//   block: int rowCount, int rawLength, int compressedLength, deflated payload
+// A negative rowCount marks a block whose chunk rolled back after other blocks were appended
+// behind it; readers step over it.
+// The payload stores each column contiguously: orderId as zigzag varint deltas, cost as fixed-point
+// unscaled varints after a scale column (constant, so it deflates to almost nothing), shipDate as
+// epoch-day deltas, itemName through a per-block dictionary, and other strings as a length column
+// followed by their UTF-8 bytes.
+// Version 2 adds the catalog enrichment columns after freeShipping: weight as a decimal column,
+// warehouse and shippingClass through dictionaries. Its decimal columns also carry a bitmap of
+// unscaled values too wide for a long, which are stored as a length and two's-complement bytes.
+// Version 1 files are still read; the writer only appends to files of the current version.
+final class ColumnarOrderFormat {
+
+    static final int MAGIC = 0x4F524443;
+
+    static final int VERSION = 2;
+
+    static final int FILE_HEADER_LENGTH = 8;
+
+    static final int BLOCK_HEADER_LENGTH = 12;
+
+    static final int ROLLED_BACK_ROWS = -1;
+
+    private ColumnarOrderFormat() {
+    }
+
+    static ByteBuffer fileHeader() {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_LENGTH);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        return header;
+    }
+
+    // Returns the file's version.
+    static int checkFileHeader(ByteBuffer header) {
+        if (header.remaining() < FILE_HEADER_LENGTH || header.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a columnar order file");
+        }
+        int version = header.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported columnar order file version " + version);
+        }
+        return version;
+    }
+
+    static ByteBuffer encodeBlock(List<? extends TrackedOrder> orders, ZoneId zone, int compressionLevel) {
+        int rows = orders.size();
+        Encoder out = new Encoder(rows * 64);
+
+        boolean[] present = new boolean[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            present[i] = orders.get(i).getOrderId() != null;
+        }
+        out.writeBitmap(present);
+        for (TrackedOrder order : orders) {
+            if (order.getOrderId() != null) {
+                out.writeSignedVarLong(order.getOrderId() - previous);
+                previous = order.getOrderId();
+            }
+        }
+
+        String[] strings = new String[rows];
+        for (int column = 0; column < 5; column++) {
+            for (int i = 0; i < rows; i++) {
+                strings[i] = stringColumn(orders.get(i), column);
+            }
+            out.writeStrings(strings);
+        }
+
+        for (int i = 0; i < rows; i++) {
+            strings[i] = orders.get(i).getItemName();
+        }
+        out.writeDictionary(strings);
+
+        BigDecimal[] decimals = new BigDecimal[rows];
+        for (int i = 0; i < rows; i++) {
+            decimals[i] = orders.get(i).getCost();
+        }
+        out.writeDecimals(decimals);
+
+        previous = 0;
+        for (int i = 0; i < rows; i++) {
+            present[i] = orders.get(i).getShipDate() != null;
+        }
+        out.writeBitmap(present);
+        for (TrackedOrder order : orders) {
+            if (order.getShipDate() != null) {
+                long epochDay = Instant.ofEpochMilli(order.getShipDate().getTime()).atZone(zone).toLocalDate().toEpochDay();
+                out.writeSignedVarLong(epochDay - previous);
+                previous = epochDay;
+            }
+        }
+
+        for (int i = 0; i < rows; i++) {
+            present[i] = orders.get(i).isFreeShipping();
+        }
+        out.writeBitmap(present);
+
+        for (int i = 0; i < rows; i++) {
+            decimals[i] = orders.get(i).getWeight();
+        }
+        out.writeDecimals(decimals);
+        for (int i = 0; i < rows; i++) {
+            strings[i] = orders.get(i).getWarehouse();
+        }
+        out.writeDictionary(strings);
+        for (int i = 0; i < rows; i++) {
+            strings[i] = orders.get(i).getShippingClass();
+        }
+        out.writeDictionary(strings);
+
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(out.bytes, 0, out.size);
+            deflater.finish();
+            byte[] compressed = new byte[Math.max(64, out.size + out.size / 100 + 64)];
+            int compressedLength = 0;
+            while (!deflater.finished()) {
+                if (compressedLength == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+            }
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_LENGTH + compressedLength);
+            block.putInt(rows).putInt(out.size).putInt(compressedLength).put(compressed, 0, compressedLength).flip();
+            return block;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static TrackedOrder[] decodeBlock(int version, int rows, int rawLength, byte[] compressed, ZoneId zone)
+            throws DataFormatException {
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int inflated = 0;
+            while (inflated < rawLength && !inflater.finished()) {
+                int count = inflater.inflate(raw, inflated, rawLength - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != rawLength) {
+                throw new DataFormatException("Block inflated to " + inflated + " of " + rawLength + " bytes");
+            }
+        } finally {
+            inflater.end();
+        }
+
+        Decoder in = new Decoder(raw);
+        TrackedOrder[] orders = new TrackedOrder[rows];
+        for (int i = 0; i < rows; i++) {
+            orders[i] = new TrackedOrder();
+        }
+
+        boolean[] present = in.readBitmap(rows);
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            if (present[i]) {
+                previous += in.readSignedVarLong();
+                orders[i].setOrderId(previous);
+            }
+        }
+
+        for (int column = 0; column < 5; column++) {
+            String[] strings = in.readStrings(rows);
+            for (int i = 0; i < rows; i++) {
+                setStringColumn(orders[i], column, strings[i]);
+            }
+        }
+
+        String[] strings = in.readDictionary(rows);
+        for (int i = 0; i < rows; i++) {
+            orders[i].setItemName(strings[i]);
+        }
+
+        BigDecimal[] decimals = in.readDecimals(rows, version);
+        for (int i = 0; i < rows; i++) {
+            orders[i].setCost(decimals[i]);
+        }
+
+        present = in.readBitmap(rows);
+        previous = 0;
+        long lastDay = Long.MIN_VALUE;
+        long lastDayMillis = 0;
+        for (int i = 0; i < rows; i++) {
+            if (present[i]) {
+                previous += in.readSignedVarLong();
+                if (previous != lastDay) {
+                    lastDay = previous;
+                    lastDayMillis = LocalDate.ofEpochDay(lastDay).atStartOfDay(zone).toInstant().toEpochMilli();
+                }
+                orders[i].setShipDate(new Date(lastDayMillis));
+            }
+        }
+
+        present = in.readBitmap(rows);
+        for (int i = 0; i < rows; i++) {
+            orders[i].setFreeShipping(present[i]);
+        }
+        if (version < 2) {
+            return orders;
+        }
+
+        decimals = in.readDecimals(rows, version);
+        for (int i = 0; i < rows; i++) {
+            orders[i].setWeight(decimals[i]);
+        }
+        strings = in.readDictionary(rows);
+        for (int i = 0; i < rows; i++) {
+            orders[i].setWarehouse(strings[i]);
+        }
+        strings = in.readDictionary(rows);
+        for (int i = 0; i < rows; i++) {
+            orders[i].setShippingClass(strings[i]);
+        }
+        return orders;
+    }
+
+    private static String stringColumn(TrackedOrder order, int column) {
+        switch (column) {
+            case 0:
+                return order.getFirstName();
+            case 1:
+                return order.getLastName();
+            case 2:
+                return order.getEmail();
+            case 3:
+                return order.getItemId();
+            default:
+                return order.getTrackingNumber();
+        }
+    }
+
+    private static void setStringColumn(TrackedOrder order, int column, String value) {
+        switch (column) {
+            case 0:
+                order.setFirstName(value);
+                break;
+            case 1:
+                order.setLastName(value);
+                break;
+            case 2:
+                order.setEmail(value);
+                break;
+            case 3:
+                order.setItemId(value);
+                break;
+            default:
+                order.setTrackingNumber(value);
+        }
+    }
+
+    private static class Encoder {
+
+        private byte[] bytes;
+
+        private int size;
+
+        private Encoder(int capacity) {
+            this.bytes = new byte[Math.max(16, capacity)];
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeBitmap(boolean[] bits) {
+            ensure((bits.length + 7) / 8);
+            for (int i = 0; i < bits.length; i += 8) {
+                int packed = 0;
+                for (int bit = 0; bit < 8 && i + bit < bits.length; bit++) {
+                    if (bits[i + bit]) {
+                        packed |= 1 << bit;
+                    }
+                }
+                bytes[size++] = (byte) packed;
+            }
+        }
+
+        // The distinct values in order of first use, then one code per row: 0 for null, otherwise index + 1.
+        private void writeDictionary(String[] values) {
+            Map<String, Integer> dictionary = new HashMap<>();
+            int[] codes = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                codes[i] = values[i] == null ? 0 : dictionary.computeIfAbsent(values[i], value -> dictionary.size() + 1);
+            }
+            String[] distinct = new String[dictionary.size()];
+            dictionary.forEach((value, code) -> distinct[code - 1] = value);
+            writeVarLong(distinct.length);
+            writeStrings(distinct);
+            for (int code : codes) {
+                writeVarLong(code);
+            }
+        }
+
+        // Presence bitmap, scale column, bitmap of values wider than a long, then the unscaled values.
+        private void writeDecimals(BigDecimal[] values) {
+            boolean[] present = new boolean[values.length];
+            boolean[] wide = new boolean[values.length];
+            for (int i = 0; i < values.length; i++) {
+                present[i] = values[i] != null;
+                wide[i] = present[i] && values[i].unscaledValue().bitLength() > 63;
+            }
+            writeBitmap(present);
+            for (BigDecimal value : values) {
+                if (value != null) {
+                    writeSignedVarLong(value.scale());
+                }
+            }
+            writeBitmap(wide);
+            for (int i = 0; i < values.length; i++) {
+                if (wide[i]) {
+                    byte[] unscaled = values[i].unscaledValue().toByteArray();
+                    writeVarLong(unscaled.length);
+                    ensure(unscaled.length);
+                    System.arraycopy(unscaled, 0, bytes, size, unscaled.length);
+                    size += unscaled.length;
+                } else if (present[i]) {
+                    writeSignedVarLong(values[i].unscaledValue().longValue());
+                }
+            }
+        }
+
+        // Lengths first (0 for null, otherwise length + 1), then the bytes; similar values compress better together.
+        private void writeStrings(String[] values) {
+            byte[][] encoded = new byte[values.length][];
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    writeVarLong(0);
+                } else {
+                    encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+                    writeVarLong(encoded[i].length + 1L);
+                }
+            }
+            for (byte[] value : encoded) {
+                if (value != null) {
+                    ensure(value.length);
+                    System.arraycopy(value, 0, bytes, size, value.length);
+                    size += value.length;
+                }
+            }
+        }
+    }
+
+    private static class Decoder {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        private Decoder(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        private long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private boolean[] readBitmap(int count) {
+            boolean[] bits = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                bits[i] = (bytes[position + (i >>> 3)] & (1 << (i & 7))) != 0;
+            }
+            position += (count + 7) / 8;
+            return bits;
+        }
+
+        private String[] readDictionary(int rows) {
+            String[] distinct = readStrings((int) readVarLong());
+            String[] values = new String[rows];
+            for (int i = 0; i < rows; i++) {
+                int code = (int) readVarLong();
+                values[i] = code == 0 ? null : distinct[code - 1];
+            }
+            return values;
+        }
+
+        private BigDecimal[] readDecimals(int rows, int version) {
+            boolean[] present = readBitmap(rows);
+            int[] scales = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                if (present[i]) {
+                    scales[i] = (int) readSignedVarLong();
+                }
+            }
+            boolean[] wide = version < 2 ? new boolean[rows] : readBitmap(rows);
+            BigDecimal[] values = new BigDecimal[rows];
+            for (int i = 0; i < rows; i++) {
+                if (wide[i]) {
+                    int length = (int) readVarLong();
+                    byte[] unscaled = Arrays.copyOfRange(bytes, position, position + length);
+                    position += length;
+                    values[i] = new BigDecimal(new BigInteger(unscaled), scales[i]);
+                } else if (present[i]) {
+                    values[i] = BigDecimal.valueOf(readSignedVarLong(), scales[i]);
+                }
+            }
+            return values;
+        }
+
+        private String[] readStrings(int count) {
+            int[] lengths = new int[count];
+            for (int i = 0; i < count; i++) {
+                lengths[i] = (int) readVarLong();
+            }
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                if (lengths[i] > 0) {
+                    values[i] = new String(bytes, position, lengths[i] - 1, StandardCharsets.UTF_8);
+                    position += lengths[i] - 1;
+                }
+            }
+            return values;
+        }
+    }
+}
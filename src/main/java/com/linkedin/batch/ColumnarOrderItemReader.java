@@ -0,0 +1,151 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.zip.DataFormatException;
+
+// Reads files written by ColumnarOrderItemWriter a block at a time. The checkpoint is the offset
+// of the current block and the row within it, so a restart seeks straight to that block.
+public class ColumnarOrderItemReader extends ItemStreamSupport implements ItemStreamReader<TrackedOrder> {
+
+    private static final String BLOCK_OFFSET = "blockOffset";
+
+    private static final String ROW_IN_BLOCK = "rowInBlock";
+
+    private Resource resource;
+
+    private ZoneId zone = ZoneId.systemDefault();
+
+    private boolean saveState = true;
+
+    private FileChannel channel;
+
+    private TrackedOrder[] block;
+
+    private long blockOffset;
+
+    private long nextBlockOffset;
+
+    private int version;
+
+    private int rowInBlock;
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    // Must match the zone the writer used to turn ship dates into epoch days.
+    public void setZone(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        try {
+            this.channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(ColumnarOrderFormat.FILE_HEADER_LENGTH);
+            readFully(header, 0);
+            header.flip();
+            this.version = ColumnarOrderFormat.checkFileHeader(header);
+
+            this.block = null;
+            this.rowInBlock = 0;
+            this.nextBlockOffset = ColumnarOrderFormat.FILE_HEADER_LENGTH;
+            String offsetKey = getExecutionContextKey(BLOCK_OFFSET);
+            if (executionContext.containsKey(offsetKey)) {
+                this.nextBlockOffset = executionContext.getLong(offsetKey);
+                int row = executionContext.getInt(getExecutionContextKey(ROW_IN_BLOCK));
+                if (row > 0 && loadBlock()) {
+                    this.rowInBlock = row;
+                }
+            }
+        } catch (IOException | DataFormatException | IllegalArgumentException e) {
+            throw new ItemStreamException("Failed to open " + resource, e);
+        }
+    }
+
+    @Override
+    public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (saveState) {
+            boolean inBlock = block != null && rowInBlock < block.length;
+            executionContext.putLong(getExecutionContextKey(BLOCK_OFFSET), inBlock ? blockOffset : nextBlockOffset);
+            executionContext.putInt(getExecutionContextKey(ROW_IN_BLOCK), inBlock ? rowInBlock : 0);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to close " + resource, e);
+        } finally {
+            channel = null;
+            block = null;
+        }
+    }
+
+    @Override
+    public synchronized TrackedOrder read() throws Exception {
+        while (block == null || rowInBlock == block.length) {
+            if (!loadBlock()) {
+                return null;
+            }
+        }
+        return block[rowInBlock++];
+    }
+
+    private boolean loadBlock() throws IOException, DataFormatException {
+        ByteBuffer header = ByteBuffer.allocate(ColumnarOrderFormat.BLOCK_HEADER_LENGTH);
+        if (!readFully(header, nextBlockOffset)) {
+            // End of file, or a torn block the writer will truncate on its next restart.
+            return false;
+        }
+        header.flip();
+        int rows = header.getInt();
+        int rawLength = header.getInt();
+        int compressedLength = header.getInt();
+        if (rows < 0) {
+            this.block = new TrackedOrder[0];
+            this.blockOffset = nextBlockOffset;
+            this.nextBlockOffset += ColumnarOrderFormat.BLOCK_HEADER_LENGTH + compressedLength;
+            this.rowInBlock = 0;
+            return true;
+        }
+        ByteBuffer compressed = ByteBuffer.allocate(compressedLength);
+        if (!readFully(compressed, nextBlockOffset + ColumnarOrderFormat.BLOCK_HEADER_LENGTH)) {
+            return false;
+        }
+        this.block = ColumnarOrderFormat.decodeBlock(version, rows, rawLength, compressed.array(), zone);
+        this.blockOffset = nextBlockOffset;
+        this.nextBlockOffset += ColumnarOrderFormat.BLOCK_HEADER_LENGTH + compressed.capacity();
+        this.rowInBlock = 0;
+        return true;
+    }
+
+    private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
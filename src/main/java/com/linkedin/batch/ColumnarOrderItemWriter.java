@@ -0,0 +1,237 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.core.io.Resource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+// Writes TrackedOrders in ColumnarOrderFormat. Each chunk becomes one or more blocks, encoded and
+// compressed on the calling thread, so concurrent chunks only serialize on the file append.
+// The checkpoint is the offset after the last durable block that no other thread's open chunk
+// precedes, so it commits with its own chunk only; a restart truncates back to it. Blocks of a chunk
+// that rolls back may already have others behind them, so they are marked rolled back in place.
+public class ColumnarOrderItemWriter extends ItemStreamSupport implements ItemStreamWriter<TrackedOrder> {
+
+    private static final String WRITTEN_BYTES = "writtenBytes";
+
+    private Resource resource;
+
+    private int blockSize = 8192;
+
+    private int compressionLevel = Deflater.BEST_SPEED;
+
+    private ZoneId zone = ZoneId.systemDefault();
+
+    private boolean saveState = true;
+
+    private FileChannel channel;
+
+    private final Object appendLock = new Object();
+
+    private final AtomicLong durablePosition = new AtomicLong();
+
+    // Start offset of each appended chunk whose transaction has not completed yet, guarded by appendLock.
+    private final TreeMap<Long, AppendedChunk> openChunks = new TreeMap<>();
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    // Upper bound on rows per block; a block never spans chunks, so chunks smaller than this give smaller blocks.
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public void setZone(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        String key = getExecutionContextKey(WRITTEN_BYTES);
+        try {
+            this.channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            synchronized (appendLock) {
+                openChunks.clear();
+            }
+            if (executionContext.containsKey(key)) {
+                long restartPosition = executionContext.getLong(key);
+                // Blocks of the current version cannot follow those of a file an older version started.
+                ByteBuffer header = ByteBuffer.allocate(ColumnarOrderFormat.FILE_HEADER_LENGTH);
+                while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                }
+                header.flip();
+                int version = ColumnarOrderFormat.checkFileHeader(header);
+                if (version != ColumnarOrderFormat.VERSION) {
+                    throw new ItemStreamException("Cannot restart " + resource + ", written in columnar format version "
+                            + version + "; run the step from the start");
+                }
+                channel.truncate(restartPosition);
+                channel.position(restartPosition);
+            } else {
+                channel.truncate(0);
+                writeFully(ColumnarOrderFormat.fileHeader());
+                channel.force(false);
+            }
+            this.durablePosition.set(channel.position());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ItemStreamException("Failed to open " + resource, e);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (!saveState) {
+            return;
+        }
+        List<AppendedChunk> own = currentChunks();
+        long position = durablePosition.get();
+        synchronized (appendLock) {
+            for (AppendedChunk chunk : openChunks.values()) {
+                if (!own.contains(chunk)) {
+                    position = Math.min(position, chunk.start);
+                    break;
+                }
+            }
+        }
+        executionContext.putLong(getExecutionContextKey(WRITTEN_BYTES), position);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to close " + resource, e);
+        } finally {
+            channel = null;
+        }
+    }
+
+    @Override
+    public void write(List<? extends TrackedOrder> items) throws Exception {
+        if (items.isEmpty()) {
+            return;
+        }
+        int blockCount = (items.size() + blockSize - 1) / blockSize;
+        ByteBuffer[] blocks = new ByteBuffer[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            blocks[i] = ColumnarOrderFormat.encodeBlock(
+                    items.subList(i * blockSize, Math.min(items.size(), (i + 1) * blockSize)), zone, compressionLevel);
+        }
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+        AppendedChunk chunk = new AppendedChunk(blockCount);
+        long end;
+        synchronized (appendLock) {
+            chunk.start = channel.position();
+            for (int i = 0; i < blockCount; i++) {
+                chunk.blockOffsets[i] = channel.position();
+                writeFully(blocks[i]);
+            }
+            end = channel.position();
+            if (transactional) {
+                openChunks.put(chunk.start, chunk);
+            }
+        }
+        if (transactional) {
+            currentTransactionChunks().add(chunk);
+        }
+        channel.force(false);
+        durablePosition.accumulateAndGet(end, Math::max);
+    }
+
+    private List<AppendedChunk> currentChunks() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new ArrayList<>();
+        }
+        @SuppressWarnings("unchecked")
+        List<AppendedChunk> own = (List<AppendedChunk>) TransactionSynchronizationManager.getResource(this);
+        return own == null ? new ArrayList<>() : own;
+    }
+
+    // The chunks appended in the current transaction, settled when it completes.
+    private List<AppendedChunk> currentTransactionChunks() {
+        @SuppressWarnings("unchecked")
+        List<AppendedChunk> own = (List<AppendedChunk>) TransactionSynchronizationManager.getResource(this);
+        if (own == null) {
+            List<AppendedChunk> bound = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(ColumnarOrderItemWriter.this);
+                    for (AppendedChunk chunk : bound) {
+                        complete(chunk, status == STATUS_COMMITTED);
+                    }
+                }
+            });
+            own = bound;
+        }
+        return own;
+    }
+
+    private void complete(AppendedChunk chunk, boolean committed) {
+        synchronized (appendLock) {
+            openChunks.remove(chunk.start);
+            if (committed || channel == null) {
+                return;
+            }
+            ByteBuffer rolledBack = ByteBuffer.allocate(Integer.BYTES);
+            try {
+                for (long blockOffset : chunk.blockOffsets) {
+                    rolledBack.clear();
+                    rolledBack.putInt(ColumnarOrderFormat.ROLLED_BACK_ROWS).flip();
+                    while (rolledBack.hasRemaining()) {
+                        channel.write(rolledBack, blockOffset + rolledBack.position());
+                    }
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to mark rolled-back blocks in " + resource, e);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static class AppendedChunk {
+
+        private long start;
+
+        private final long[] blockOffsets;
+
+        private AppendedChunk(int blockCount) {
+            this.blockOffsets = new long[blockCount];
+        }
+    }
+}
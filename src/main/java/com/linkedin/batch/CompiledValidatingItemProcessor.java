@@ -0,0 +1,230 @@
+package com.linkedin.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.validator.ValidationException;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Null;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import javax.validation.groups.Default;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+
+public class CompiledValidatingItemProcessor<T> implements ItemProcessor<T, T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompiledValidatingItemProcessor.class);
+
+    private final Validator validator;
+
+    private final Predicate<T>[] checks;
+
+    private final boolean compiled;
+
+    private boolean filter;
+
+    public CompiledValidatingItemProcessor(Class<T> type) {
+        this(type, Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompiledValidatingItemProcessor(Class<T> type, Validator validator) {
+        this.validator = validator;
+        List<Predicate<T>> compiledChecks = new ArrayList<>();
+        this.compiled = compile(type, compiledChecks);
+        this.checks = compiledChecks.toArray(new Predicate[0]);
+        if (!compiled) {
+            logger.info("Constraints on {} cannot be compiled, validating every item with {}", type.getName(), validator);
+        }
+    }
+
+    public void setFilter(boolean filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public T process(T item) throws Exception {
+        if (compiled && passes(item)) {
+            return item;
+        }
+        // Slow path: only failing items (or uncompilable types) pay for violation sets and message interpolation.
+        if (filter && compiled && !logger.isDebugEnabled()) {
+            return null;
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return item;
+        }
+        if (filter) {
+            logger.debug("Filtering {}: {}", item, violations);
+            return null;
+        }
+        StringBuilder message = new StringBuilder("Validation failed for " + item + ": ");
+        for (ConstraintViolation<T> violation : violations) {
+            message.append('\n').append(violation.getPropertyPath()).append(": ").append(violation.getMessage());
+        }
+        throw new ValidationException(message.toString());
+    }
+
+    private boolean passes(T item) {
+        for (Predicate<T> check : checks) {
+            if (!check.test(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean compile(Class<T> type, List<Predicate<T>> compiledChecks) {
+        Map<String, List<Predicate<Object>>> constraints = compileConstraints(validator, type);
+        if (constraints == null) {
+            return false;
+        }
+        GeneratedAccessors<T> accessors = GeneratedAccessors.forClass(type);
+        for (Map.Entry<String, List<Predicate<Object>>> property : constraints.entrySet()) {
+            if (!accessors.hasProperty(property.getKey())) {
+                return false;
+            }
+            Function<T, Object> getter = accessors.getter(property.getKey());
+            for (Predicate<Object> check : property.getValue()) {
+                compiledChecks.add(item -> check.test(getter.apply(item)));
+            }
+        }
+        return true;
+    }
+
+    // Default-group property constraints as direct checks, or null when any of them cannot be compiled.
+    static Map<String, List<Predicate<Object>>> compileConstraints(Validator validator, Class<?> type) {
+        BeanDescriptor bean = validator.getConstraintsForClass(type);
+        if (!bean.getConstraintDescriptors().isEmpty()) {
+            return null;
+        }
+        Map<String, List<Predicate<Object>>> constraints = new LinkedHashMap<>();
+        for (PropertyDescriptor property : bean.getConstrainedProperties()) {
+            if (property.isCascaded()) {
+                return null;
+            }
+            List<Predicate<Object>> checks = new ArrayList<>();
+            for (ConstraintDescriptor<?> constraint : property.getConstraintDescriptors()) {
+                if (!constraint.getGroups().contains(Default.class)) {
+                    continue;
+                }
+                Predicate<Object> check = compile(constraint, property.getElementClass());
+                if (check == null) {
+                    return null;
+                }
+                checks.add(check);
+            }
+            constraints.put(property.getPropertyName(), checks);
+        }
+        return constraints;
+    }
+
+    private static Predicate<Object> compile(ConstraintDescriptor<?> constraint, Class<?> elementClass) {
+        if (!constraint.getComposingConstraints().isEmpty()) {
+            return null;
+        }
+        Annotation annotation = constraint.getAnnotation();
+        if (annotation instanceof NotNull) {
+            return value -> value != null;
+        }
+        if (annotation instanceof Null) {
+            return value -> value == null;
+        }
+        if (annotation instanceof Size) {
+            // @Size also applies to collections, maps and arrays; any other declared type is left to the validator.
+            if (!CharSequence.class.isAssignableFrom(elementClass) && !Collection.class.isAssignableFrom(elementClass)
+                    && !Map.class.isAssignableFrom(elementClass) && !elementClass.isArray()) {
+                return null;
+            }
+            int min = ((Size) annotation).min();
+            int max = ((Size) annotation).max();
+            return value -> {
+                if (value == null) {
+                    return true;
+                }
+                int size = size(value);
+                return size >= min && size <= max;
+            };
+        }
+        if (annotation instanceof Pattern) {
+            Predicate<CharSequence> matcher = compile((Pattern) annotation);
+            return value -> value == null || value instanceof CharSequence && matcher.test((CharSequence) value);
+        }
+        return null;
+    }
+
+    private static int size(Object value) {
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length();
+        }
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        }
+        return Array.getLength(value);
+    }
+
+    private static Predicate<CharSequence> compile(Pattern pattern) {
+        String regexp = pattern.regexp();
+        if (pattern.flags().length == 0) {
+            boolean leadingWildcard = regexp.startsWith(".*");
+            boolean trailingWildcard = regexp.length() > 2 && regexp.endsWith(".*") && !regexp.endsWith("\\.*");
+            String literal = OrderPredicate.unescapeLiteral(regexp.substring(leadingWildcard ? 2 : 0,
+                    Math.max(leadingWildcard ? 2 : 0, regexp.length() - (trailingWildcard ? 2 : 0))));
+            if (literal != null) {
+                // ".*" does not cross line terminators, so the wildcard part must not contain any.
+                if (leadingWildcard && trailingWildcard) {
+                    return value -> {
+                        int index = value.toString().indexOf(literal);
+                        return index >= 0 && noLineTerminator(value, 0, index)
+                                && noLineTerminator(value, index + literal.length(), value.length());
+                    };
+                }
+                if (leadingWildcard) {
+                    return value -> value.toString().endsWith(literal) && noLineTerminator(value, 0, value.length() - literal.length());
+                }
+                if (trailingWildcard) {
+                    return value -> value.toString().startsWith(literal) && noLineTerminator(value, literal.length(), value.length());
+                }
+                return literal::contentEquals;
+            }
+        }
+        int flags = 0;
+        for (Pattern.Flag flag : pattern.flags()) {
+            flags |= flag.getValue();
+        }
+        java.util.regex.Pattern compiledPattern = java.util.regex.Pattern.compile(regexp, flags);
+        ThreadLocal<Matcher> matchers = ThreadLocal.withInitial(() -> compiledPattern.matcher(""));
+        return value -> matchers.get().reset(value).matches();
+    }
+
+    private static boolean noLineTerminator(CharSequence value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
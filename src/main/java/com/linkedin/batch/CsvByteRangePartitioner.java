@@ -0,0 +1,242 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Splits a delimited file, or every matching file of a directory, into byte ranges that start on
+// record boundaries, for MappedCsvOrderItemReader to read in parallel. The total size is divided
+// evenly over the grid: a large file gets several ranges, a small one a single range, so partitions
+// come out roughly the same size whatever the mix of files. A record belongs to the range its first
+// byte falls in; the header stays in the first range, and readers of later ranges read it only to
+// resolve columns. Quoted fields may hold newlines, and a quote opens one only at the start of a
+// field, as in MappedCsvOrderItemReader, so a stray quote such as 12" pizza is data. The scan state
+// at each split point is worked out in parallel: every range is run from each of the four states of
+// the reader's grammar, the resulting state maps are chained in order, and the boundary is the first
+// newline after the split point outside quotes.
+public class CsvByteRangePartitioner implements Partitioner {
+
+    public static final String FILE_NAME = "fileName";
+    public static final String START_OFFSET = "startOffset";
+    public static final String END_OFFSET = "endOffset";
+
+    private static final int SCAN_BUFFER_SIZE = 1 << 16;
+
+    // Scan states: at the start of a field, inside an unquoted field, inside a quoted field, and just
+    // after a quote inside a quoted field (the closing quote, or the first half of an escaped "").
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+    private static final int STATES = 4;
+
+    private final Path input;
+
+    private String filePattern = "*.csv";
+
+    private boolean quotedNewlines = true;
+
+    private byte delimiter = ',';
+
+    public CsvByteRangePartitioner(Path input) {
+        this.input = input;
+    }
+
+    // Must match the reader's delimiter: a quote right after it opens a quoted field.
+    public void setDelimiter(char delimiter) {
+        this.delimiter = (byte) delimiter;
+    }
+
+    // Glob for the files taken from a directory input.
+    public void setFilePattern(String filePattern) {
+        this.filePattern = filePattern;
+    }
+
+    // Without quoted newlines the quote scan is skipped and any newline is a boundary.
+    public void setQuotedNewlines(boolean quotedNewlines) {
+        this.quotedNewlines = quotedNewlines;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        try {
+            List<Path> files = files();
+            long totalSize = 0;
+            for (Path file : files) {
+                totalSize += Files.size(file);
+            }
+            long rangeSize = Math.max(1, (totalSize + Math.max(1, gridSize) - 1) / Math.max(1, gridSize));
+
+            int number = 0;
+            for (Path file : files) {
+                long size = Files.size(file);
+                if (size == 0) {
+                    continue;
+                }
+                int ranges = (int) Math.max(1, Math.min(Math.max(1, gridSize), Math.round((double) size / rangeSize)));
+                long[] boundaries = boundaries(file, size, ranges);
+                for (int i = 0; i < ranges; i++) {
+                    if (boundaries[i] < boundaries[i + 1]) {
+                        ExecutionContext context = new ExecutionContext();
+                        context.putString(FILE_NAME, file.toAbsolutePath().toString());
+                        context.putLong(START_OFFSET, boundaries[i]);
+                        context.putLong(END_OFFSET, boundaries[i + 1]);
+                        partitions.put("partition" + number++, context);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to partition " + input, e);
+        }
+        return partitions;
+    }
+
+    private List<Path> files() throws IOException {
+        if (!Files.isDirectory(input)) {
+            return Collections.singletonList(input);
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(input, filePattern)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private long[] boundaries(Path file, long size, int ranges) throws IOException {
+        long[] splits = new long[ranges + 1];
+        for (int i = 0; i <= ranges; i++) {
+            splits[i] = size / ranges * i + Math.min(i, size % ranges);
+        }
+        long[] boundaries = new long[ranges + 1];
+        boundaries[ranges] = size;
+        if (ranges == 1) {
+            return boundaries;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int[] states = new int[ranges];
+            byte[] transitions = quotedNewlines ? transitions() : null;
+            if (quotedNewlines) {
+                byte[][] stateMaps = IntStream.range(0, ranges - 1).parallel()
+                        .mapToObj(i -> stateMap(channel, transitions, splits[i], splits[i + 1]))
+                        .toArray(byte[][]::new);
+                int state = FIELD_START;
+                for (int i = 1; i < ranges; i++) {
+                    state = stateMaps[i - 1][state];
+                    states[i] = state;
+                }
+            }
+            for (int i = 1; i < ranges; i++) {
+                boundaries[i] = Math.max(boundaries[i - 1], quotedNewlines
+                        ? nextRecordStart(channel, transitions, splits[i], states[i], size)
+                        : nextRecordStart(channel, splits[i], size));
+            }
+        }
+        return boundaries;
+    }
+
+    // The next state for every state and byte, indexed by state * 256 + unsigned byte.
+    private byte[] transitions() {
+        byte[] transitions = new byte[STATES * 256];
+        for (int b = 0; b < 256; b++) {
+            boolean separator = b == (delimiter & 0xff) || b == '\n' || b == '\r';
+            transitions[FIELD_START * 256 + b] = (byte) (separator ? FIELD_START : b == '"' ? QUOTED : UNQUOTED);
+            transitions[UNQUOTED * 256 + b] = (byte) (separator ? FIELD_START : UNQUOTED);
+            transitions[QUOTED * 256 + b] = (byte) (b == '"' ? QUOTE_IN_QUOTED : QUOTED);
+            // The reader rejects anything but a separator after a closing quote; carry on as unquoted.
+            transitions[QUOTE_IN_QUOTED * 256 + b] = (byte) (separator ? FIELD_START : b == '"' ? QUOTED : UNQUOTED);
+        }
+        return transitions;
+    }
+
+    // The state at the end of the range for each state at its start.
+    private static byte[] stateMap(FileChannel channel, byte[] transitions, long from, long to) {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        int s0 = FIELD_START;
+        int s1 = UNQUOTED;
+        int s2 = QUOTED;
+        int s3 = QUOTE_IN_QUOTED;
+        long position = from;
+        try {
+            while (position < to) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), to - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    int b = bytes[i] & 0xff;
+                    s0 = transitions[s0 << 8 | b];
+                    s1 = transitions[s1 << 8 | b];
+                    s2 = transitions[s2 << 8 | b];
+                    s3 = transitions[s3 << 8 | b];
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new byte[]{(byte) s0, (byte) s1, (byte) s2, (byte) s3};
+    }
+
+    private static long nextRecordStart(FileChannel channel, byte[] transitions, long from, int state, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n' && state != QUOTED) {
+                    return position + i + 1;
+                }
+                state = transitions[state << 8 | bytes[i] & 0xff];
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static long nextRecordStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
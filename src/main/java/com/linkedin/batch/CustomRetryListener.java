@@ -1,15 +1,19 @@
 package com.linkedin.batch;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.RetryContext;
 import org.springframework.retry.RetryListener;
 
 public class CustomRetryListener implements RetryListener {
 
+    private static final Logger logger = LoggerFactory.getLogger(CustomRetryListener.class);
+
     @Override
     public <T, E extends Throwable> boolean open(RetryContext retryContext, RetryCallback<T, E> retryCallback) {
         if (retryContext.getRetryCount() > 0) {
-            System.out.println("Attempting retry");
+            logger.debug("Attempting retry");
         }
         return true;
     }
@@ -22,7 +26,7 @@ public class CustomRetryListener implements RetryListener {
     @Override
     public <T, E extends Throwable> void onError(RetryContext retryContext, RetryCallback<T, E> retryCallback, Throwable throwable) {
         if (retryContext.getRetryCount() > 0) {
-            System.out.println("Failure occurred requiring a retry");
+            logger.debug("Failure occurred requiring a retry");
         }
     }
 }
@@ -1,9 +1,13 @@
 package com.linkedin.batch;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.SkipListener;
 
 public class CustomSkipListener implements SkipListener<Order, TrackedOrder> {
 
+    private static final Logger logger = LoggerFactory.getLogger(CustomSkipListener.class);
+
     @Override
     public void onSkipInRead(Throwable throwable) {
 
@@ -16,6 +20,6 @@ public class CustomSkipListener implements SkipListener<Order, TrackedOrder> {
 
     @Override
     public void onSkipInProcess(Order order, Throwable throwable) {
-        System.out.println("Skipping processing of order with id: " + order.getOrderId());
+        logger.debug("Skipping processing of order with id: {}", order.getOrderId());
     }
 }
@@ -0,0 +1,6 @@
+package com.linkedin.batch;
+
+public enum ExecutorMode {
+    PLATFORM,
+    VIRTUAL
+}
@@ -0,0 +1,26 @@
+package com.linkedin.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.batch.item.ItemProcessor;
+
+public class FilterCountingItemProcessor<I, O> implements ItemProcessor<I, O> {
+
+    private final ItemProcessor<I, O> delegate;
+
+    private final Counter filteredCounter;
+
+    public FilterCountingItemProcessor(String name, ItemProcessor<I, O> delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.filteredCounter = registry.counter("batch.order.filtered", "processor", name);
+    }
+
+    @Override
+    public O process(I item) throws Exception {
+        O result = delegate.process(item);
+        if (result == null) {
+            filteredCounter.increment();
+        }
+        return result;
+    }
+}
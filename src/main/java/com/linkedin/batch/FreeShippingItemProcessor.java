@@ -3,13 +3,22 @@ package com.linkedin.batch;
 import org.springframework.batch.item.ItemProcessor;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
 
-public class FreeShippingItemProcessor implements ItemProcessor<TrackedOrder, TrackedOrder> {
+public class FreeShippingItemProcessor implements ItemProcessor<TrackedOrder, TrackedOrder>, OrderPredicateProvider {
+
+    private static final BigDecimal FREE_SHIPPING_THRESHOLD = new BigDecimal("80");
 
     @Override
     public TrackedOrder process(TrackedOrder trackedOrder) throws Exception {
-        trackedOrder.setFreeShipping(trackedOrder.getCost().compareTo(new BigDecimal("80")) > 0);
+        trackedOrder.setFreeShipping(trackedOrder.getCost().compareTo(FREE_SHIPPING_THRESHOLD) > 0);
 
        return trackedOrder.isFreeShipping() ? trackedOrder : null;
     }
+
+    @Override
+    public List<OrderPredicate> getPredicates() {
+        return Collections.singletonList(OrderPredicate.greaterThan("cost", FREE_SHIPPING_THRESHOLD));
+    }
 }
@@ -0,0 +1,21 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.ItemProcessor;
+
+public class FreeShippingOrderBatchProcessor implements ItemProcessor<OrderBatch, OrderBatch> {
+
+    private static final long FREE_SHIPPING_THRESHOLD_CENTS = 8000;
+
+    @Override
+    public OrderBatch process(OrderBatch batch) {
+        boolean[] freeShipping = new boolean[batch.selectedCount()];
+        for (int i = 0; i < freeShipping.length; i++) {
+            int row = batch.selected(i);
+            freeShipping[i] = batch.costCents(row) != OrderBatch.NULL_COST
+                    && batch.costCents(row) > FREE_SHIPPING_THRESHOLD_CENTS;
+            batch.setFreeShipping(row, freeShipping[i]);
+        }
+        batch.retain(freeShipping);
+        return batch.selectedCount() == 0 ? null : batch;
+    }
+}
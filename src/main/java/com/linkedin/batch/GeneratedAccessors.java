@@ -0,0 +1,94 @@
+package com.linkedin.batch;
+
+import org.springframework.beans.BeanUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+public final class GeneratedAccessors<T> {
+
+    private static final ClassValue<GeneratedAccessors<?>> ACCESSORS = new ClassValue<GeneratedAccessors<?>>() {
+        @Override
+        protected GeneratedAccessors<?> computeValue(Class<?> type) {
+            return new GeneratedAccessors<>(type);
+        }
+    };
+
+    private final Class<T> type;
+
+    private final Map<String, Function<T, Object>> getters = new LinkedHashMap<>();
+
+    private final Map<String, Class<?>> propertyTypes = new LinkedHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public static <T> GeneratedAccessors<T> forClass(Class<T> type) {
+        return (GeneratedAccessors<T>) ACCESSORS.get(type);
+    }
+
+    private GeneratedAccessors(Class<T> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(type)) {
+            Method readMethod = descriptor.getReadMethod();
+            if (readMethod == null || readMethod.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            getters.put(descriptor.getName(), generateGetter(lookup, readMethod));
+            propertyTypes.put(descriptor.getName(), descriptor.getPropertyType());
+        }
+    }
+
+    // Spins a Function implementation that calls the getter directly, the same way a lambda is compiled.
+    @SuppressWarnings("unchecked")
+    private static <T> Function<T, Object> generateGetter(MethodHandles.Lookup lookup, Method readMethod) {
+        try {
+            MethodHandle handle = lookup.unreflect(readMethod);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    handle.type().wrap());
+            return (Function<T, Object>) site.getTarget().invoke();
+        } catch (Throwable t) {
+            throw new IllegalStateException("Cannot generate accessor for " + readMethod, t);
+        }
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public Map<String, Class<?>> getPropertyTypes() {
+        return Collections.unmodifiableMap(propertyTypes);
+    }
+
+    public boolean hasProperty(String name) {
+        return getters.containsKey(name);
+    }
+
+    public Function<T, Object> getter(String name) {
+        Function<T, Object> getter = getters.get(name);
+        if (getter == null) {
+            throw new IllegalArgumentException("No readable property '" + name + "' on " + type.getName());
+        }
+        return getter;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Function<T, Object>[] getters(String... names) {
+        Function<T, Object>[] resolved = new Function[names.length];
+        for (int i = 0; i < names.length; i++) {
+            resolved[i] = getter(names[i]);
+        }
+        return resolved;
+    }
+}
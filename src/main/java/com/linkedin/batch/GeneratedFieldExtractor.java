@@ -0,0 +1,23 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.file.transform.FieldExtractor;
+
+import java.util.function.Function;
+
+public class GeneratedFieldExtractor<T> implements FieldExtractor<T> {
+
+    private final Function<T, Object>[] getters;
+
+    public GeneratedFieldExtractor(Class<T> type, String... names) {
+        this.getters = GeneratedAccessors.forClass(type).getters(names);
+    }
+
+    @Override
+    public Object[] extract(T item) {
+        Object[] values = new Object[getters.length];
+        for (int i = 0; i < getters.length; i++) {
+            values[i] = getters[i].apply(item);
+        }
+        return values;
+    }
+}
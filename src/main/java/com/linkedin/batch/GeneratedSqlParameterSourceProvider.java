@@ -0,0 +1,59 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.database.ItemSqlParameterSourceProvider;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class GeneratedSqlParameterSourceProvider<T> implements ItemSqlParameterSourceProvider<T> {
+
+    private static final ClassValue<Map<String, Integer>> SQL_TYPES = new ClassValue<Map<String, Integer>>() {
+        @Override
+        protected Map<String, Integer> computeValue(Class<?> type) {
+            Map<String, Integer> sqlTypes = new HashMap<>();
+            GeneratedAccessors.forClass(type).getPropertyTypes().forEach((name, propertyType) ->
+                    sqlTypes.put(name, StatementCreatorUtils.javaTypeToSqlParameterType(propertyType)));
+            return sqlTypes;
+        }
+    };
+
+    @Override
+    public SqlParameterSource createSqlParameterSource(T item) {
+        return new AccessorSqlParameterSource(item);
+    }
+
+    private static class AccessorSqlParameterSource extends AbstractSqlParameterSource {
+
+        private final GeneratedAccessors<Object> accessors;
+
+        private final Map<String, Integer> sqlTypes;
+
+        private final Object item;
+
+        @SuppressWarnings("unchecked")
+        private AccessorSqlParameterSource(Object item) {
+            this.accessors = (GeneratedAccessors<Object>) GeneratedAccessors.forClass(item.getClass());
+            this.sqlTypes = SQL_TYPES.get(item.getClass());
+            this.item = item;
+        }
+
+        @Override
+        public boolean hasValue(String paramName) {
+            return accessors.hasProperty(paramName);
+        }
+
+        @Override
+        public Object getValue(String paramName) throws IllegalArgumentException {
+            return accessors.getter(paramName).apply(item);
+        }
+
+        @Override
+        public int getSqlType(String paramName) {
+            Integer sqlType = sqlTypes.get(paramName);
+            return sqlType != null ? sqlType : TYPE_UNKNOWN;
+        }
+    }
+}
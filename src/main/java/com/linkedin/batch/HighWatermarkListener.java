@@ -0,0 +1,113 @@
+package com.linkedin.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// Incremental mode: each job instance reads only the orders added since the last completed one.
+// beforeJob fixes the range (previous high watermark minus the lookback, current max order_id] in the
+// job ExecutionContext, so a restart of the same instance reads the same range; beforeStep hands it
+// to the reader. The next instance finds the watermark on the last COMPLETED execution, so a failed
+// run never advances it.
+public class HighWatermarkListener implements JobExecutionListener, StepExecutionListener {
+
+    public static final String FULL_REBUILD_PARAMETER = "fullRebuild";
+
+    private static final Logger logger = LoggerFactory.getLogger(HighWatermarkListener.class);
+
+    private static final String MAX_ORDER_ID_SQL = "select max(order_id) from SHIPPED_ORDER";
+
+    private static final int INSTANCE_PAGE_SIZE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final JobExplorer jobExplorer;
+
+    private long lookback;
+
+    public HighWatermarkListener(DataSource dataSource, JobExplorer jobExplorer) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jobExplorer = jobExplorer;
+    }
+
+    // How many order ids below the previous watermark to read again, for rows that committed late.
+    public void setLookback(long lookback) {
+        this.lookback = lookback;
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        ExecutionContext context = jobExecution.getExecutionContext();
+        if (context.containsKey(OrderIdRangePartitioner.MAX_VALUE)) {
+            // A restart keeps the range of the execution it resumes.
+            return;
+        }
+        boolean fullRebuild = Boolean.parseBoolean(jobExecution.getJobParameters().getString(FULL_REBUILD_PARAMETER));
+        Long previous = fullRebuild ? null : previousHighWatermark(jobExecution.getJobInstance());
+        Long high = jdbcTemplate.queryForObject(MAX_ORDER_ID_SQL, Long.class);
+        if (high == null) {
+            // Nothing to read; carry the old watermark forward.
+            high = previous;
+        }
+        if (previous != null) {
+            context.putLong(OrderIdRangePartitioner.MIN_VALUE, previous - lookback + 1);
+        }
+        if (high != null) {
+            context.putLong(OrderIdRangePartitioner.MAX_VALUE, high);
+        }
+        logger.info("{} reads order_id range [{}, {}]{}", jobExecution.getJobInstance().getJobName(),
+                previous == null ? "-" : previous - lookback + 1, high == null ? "-" : high, fullRebuild ? " (full rebuild)" : "");
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        ExecutionContext jobContext = stepExecution.getJobExecution().getExecutionContext();
+        ExecutionContext stepContext = stepExecution.getExecutionContext();
+        for (String key : new String[]{OrderIdRangePartitioner.MIN_VALUE, OrderIdRangePartitioner.MAX_VALUE}) {
+            if (jobContext.containsKey(key)) {
+                stepContext.putLong(key, jobContext.getLong(key));
+            }
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        return null;
+    }
+
+    private Long previousHighWatermark(JobInstance current) {
+        for (int start = 0; ; start += INSTANCE_PAGE_SIZE) {
+            List<JobInstance> instances = jobExplorer.getJobInstances(current.getJobName(), start, INSTANCE_PAGE_SIZE);
+            for (JobInstance instance : instances) {
+                if (instance.getInstanceId() >= current.getInstanceId()) {
+                    continue;
+                }
+                for (JobExecution execution : jobExplorer.getJobExecutions(instance)) {
+                    if (execution.getStatus() == BatchStatus.COMPLETED
+                            && execution.getExecutionContext().containsKey(OrderIdRangePartitioner.MAX_VALUE)) {
+                        return execution.getExecutionContext().getLong(OrderIdRangePartitioner.MAX_VALUE);
+                    }
+                }
+            }
+            if (instances.size() < INSTANCE_PAGE_SIZE) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.linkedin.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Drops orders that are already in TRACKED_ORDER before the delegate inserts them, so restarts
+// and retried chunks do not insert twice. A Bloom filter of the existing ids, loaded in one
+// streaming pass on open, clears most orders without touching the database; the few possible
+// hits are confirmed with one batched IN lookup per chunk.
+// The filter belongs to one step execution, so use one instance per step execution (step scope),
+// not one shared by partitions or steps; open() rebuilds it and close() leaves it in place.
+public class IdempotentTrackedOrderItemWriter extends ItemStreamSupport implements ItemStreamWriter<TrackedOrder> {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotentTrackedOrderItemWriter.class);
+
+    private static final String COUNT_SQL = "select count(*) from TRACKED_ORDER";
+
+    private static final String ORDER_IDS_SQL = "select order_id from TRACKED_ORDER";
+
+    private static final String EXISTING_ORDER_IDS_SQL = "select order_id from TRACKED_ORDER where order_id in (:orderIds)";
+
+    // Keeps the IN list well under any server limit on statement size.
+    private static final int MAX_IN_LIST = 1000;
+
+    private final ItemWriter<TrackedOrder> delegate;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private long expectedNewOrders = 1_000_000;
+
+    private double falsePositiveRate = 0.01;
+
+    private volatile LongBloomFilter trackedOrderIds;
+
+    public IdempotentTrackedOrderItemWriter(ItemWriter<TrackedOrder> delegate, DataSource dataSource) {
+        this.delegate = delegate;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // Connector/J streams rows one by one instead of buffering the whole result set.
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    // Headroom in the filter for the orders this step is going to add.
+    public void setExpectedNewOrders(long expectedNewOrders) {
+        this.expectedNewOrders = expectedNewOrders;
+    }
+
+    public void setFalsePositiveRate(double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).open(executionContext);
+        }
+        long existing = streamingJdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+        LongBloomFilter filter = new LongBloomFilter(existing + expectedNewOrders, falsePositiveRate);
+        long[] loaded = {0};
+        streamingJdbcTemplate.query(ORDER_IDS_SQL, resultSet -> {
+            filter.put(resultSet.getLong(1));
+            loaded[0]++;
+        });
+        logger.info("Loaded {} tracked order ids into a {} KiB filter", loaded[0], filter.bitCount() / Byte.SIZE / 1024);
+        this.trackedOrderIds = filter;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).close();
+        }
+    }
+
+    @Override
+    public void write(List<? extends TrackedOrder> items) throws Exception {
+        LongBloomFilter filter = trackedOrderIds;
+        List<Long> possibleDuplicates = new ArrayList<>();
+        for (TrackedOrder item : items) {
+            if (item.getOrderId() != null && filter.mightContain(item.getOrderId())) {
+                possibleDuplicates.add(item.getOrderId());
+            }
+        }
+        Set<Long> duplicates = possibleDuplicates.isEmpty() ? Collections.emptySet() : existingOrderIds(possibleDuplicates);
+
+        List<TrackedOrder> newOrders = new ArrayList<>(items.size());
+        for (TrackedOrder item : items) {
+            if (item.getOrderId() == null || !duplicates.contains(item.getOrderId())) {
+                newOrders.add(item);
+            }
+        }
+        if (newOrders.size() < items.size()) {
+            logger.debug("Skipped {} already tracked orders", items.size() - newOrders.size());
+        }
+        if (newOrders.isEmpty()) {
+            return;
+        }
+        delegate.write(newOrders);
+        // Added before the chunk commits; after a rollback these ids only cost an extra lookup.
+        for (TrackedOrder order : newOrders) {
+            if (order.getOrderId() != null) {
+                filter.put(order.getOrderId());
+            }
+        }
+    }
+
+    private Set<Long> existingOrderIds(List<Long> orderIds) {
+        Set<Long> existing = new HashSet<>();
+        for (int from = 0; from < orderIds.size(); from += MAX_IN_LIST) {
+            List<Long> batch = orderIds.subList(from, Math.min(orderIds.size(), from + MAX_IN_LIST));
+            existing.addAll(jdbcTemplate.queryForList(EXISTING_ORDER_IDS_SQL,
+                    Collections.singletonMap("orderIds", batch), Long.class));
+        }
+        return existing;
+    }
+}
@@ -0,0 +1,45 @@
+package com.linkedin.batch;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Item names repeat across millions of orders; batches store a small int code per row instead.
+public class ItemNameDictionary {
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+    private final List<String> names = new CopyOnWriteArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public int code(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Integer code = codes.get(name);
+        return code != null ? code : register(name);
+    }
+
+    // A lock rather than synchronized, so a virtual thread registering a name does not pin its carrier.
+    private int register(String name) {
+        lock.lock();
+        try {
+            Integer code = codes.get(name);
+            if (code == null) {
+                code = names.size();
+                names.add(name);
+                codes.put(name, code);
+            }
+            return code;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String name(int code) {
+        return code < 0 ? null : names.get(code);
+    }
+}
@@ -0,0 +1,153 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads SHIPPED_ORDER by order_id keyset straight into column arrays, one OrderBatch per read.
+public class JdbcOrderBatchItemReader extends ItemStreamSupport implements ItemStreamReader<OrderBatch> {
+
+    private static final String LAST_ORDER_ID = "lastOrderId";
+
+    private static final String BATCH_ORDER_SQL = "select order_id, first_name, last_name, email, cost, item_id, item_name, ship_date "
+            + "from SHIPPED_ORDER where order_id > :lastKey%s order by order_id limit :batchSize";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final ItemNameDictionary itemNames = new ItemNameDictionary();
+
+    private int batchSize = 1000;
+
+    private boolean saveState = true;
+
+    private List<OrderPredicate> predicates = Collections.emptyList();
+
+    private String sql;
+
+    private Map<String, Object> parameters;
+
+    private long lastOrderId;
+
+    private boolean exhausted;
+
+    public JdbcOrderBatchItemReader(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    public void setPredicates(List<OrderPredicate> predicates) {
+        this.predicates = predicates;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        String key = getExecutionContextKey(LAST_ORDER_ID);
+        this.lastOrderId = executionContext.containsKey(key) ? executionContext.getLong(key) : Long.MIN_VALUE;
+        this.exhausted = false;
+        this.sql = String.format(BATCH_ORDER_SQL, predicates.isEmpty() ? "" : " and " + OrderPredicate.whereClause(predicates));
+        this.parameters = new HashMap<>(OrderPredicate.parameterValues(predicates));
+        this.parameters.put("batchSize", batchSize);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (saveState) {
+            executionContext.putLong(getExecutionContextKey(LAST_ORDER_ID), lastOrderId);
+        }
+    }
+
+    @Override
+    public OrderBatch read() {
+        if (exhausted) {
+            return null;
+        }
+        OrderBatch batch = new OrderBatch(batchSize, itemNames);
+        parameters.put("lastKey", lastOrderId);
+        jdbcTemplate.query(sql, parameters, resultSet -> {
+            addRow(batch, resultSet);
+        });
+        if (batch.size() < batchSize) {
+            exhausted = true;
+        }
+        if (batch.size() == 0) {
+            return null;
+        }
+        lastOrderId = batch.lastOrderId();
+        return batch;
+    }
+
+    private static void addRow(OrderBatch batch, ResultSet resultSet) throws SQLException {
+        batch.add(resultSet.getLong(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getString(4),
+                parseCents(resultSet.getString(5)),
+                resultSet.getString(6),
+                resultSet.getString(7),
+                parseEpochDay(resultSet.getString(8)));
+    }
+
+    // cost is stored as text; parse it to cents without going through BigDecimal.
+    static long parseCents(String value) throws SQLException {
+        if (value == null || value.isEmpty()) {
+            return OrderBatch.NULL_COST;
+        }
+        int p = 0;
+        boolean negative = value.charAt(0) == '-';
+        if (negative || value.charAt(0) == '+') {
+            p++;
+        }
+        long cents = 0;
+        int fractionDigits = -1;
+        for (; p < value.length(); p++) {
+            char c = value.charAt(p);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            if (c < '0' || c > '9' || fractionDigits == 2) {
+                throw new SQLDataException("Cost " + value + " is not a decimal with at most two fraction digits");
+            }
+            cents = cents * 10 + (c - '0');
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+        for (int i = Math.max(fractionDigits, 0); i < 2; i++) {
+            cents *= 10;
+        }
+        return negative ? -cents : cents;
+    }
+
+    static int parseEpochDay(String value) throws SQLException {
+        if (value == null) {
+            return OrderBatch.NULL_DATE;
+        }
+        if (value.length() != 10 || value.charAt(4) != '-' || value.charAt(7) != '-') {
+            throw new SQLDataException("Ship date " + value + " is not yyyy-MM-dd");
+        }
+        int year = Integer.parseInt(value, 0, 4, 10);
+        int month = Integer.parseInt(value, 5, 7, 10);
+        int day = Integer.parseInt(value, 8, 10, 10);
+        return (int) LocalDate.of(year, month, day).toEpochDay();
+    }
+}
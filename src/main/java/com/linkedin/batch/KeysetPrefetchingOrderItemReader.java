@@ -0,0 +1,265 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class KeysetPrefetchingOrderItemReader extends ItemStreamSupport
+        implements ItemStreamReader<Order>, ItemProcessListener<Order, Object>, ItemWriteListener<Order>,
+        SkipListener<Order, Order> {
+
+    private static final String LAST_COMPLETED_ORDER_ID = "lastCompletedOrderId";
+
+    private static final String KEYSET_ORDER_SQL = "select order_id, first_name, last_name, email, cost, item_id, item_name, ship_date "
+            + "from SHIPPED_ORDER where order_id > :lastKey%s order by order_id limit :pageSize";
+
+    private static final String UPPER_BOUND = " and order_id <= :maxValue";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final OrderRowMapper rowMapper = new OrderRowMapper();
+
+    private int pageSize = 1000;
+
+    private int bufferSize = 5000;
+
+    private boolean saveState = true;
+
+    private List<OrderPredicate> predicates = Collections.emptyList();
+
+    private Queue<Order> buffer;
+
+    private Semaphore freeSlots;
+
+    private Semaphore filledSlots;
+
+    private ConcurrentSkipListSet<Long> inFlight;
+
+    private ConcurrentSkipListSet<Long> completed;
+
+    private final AtomicLong lastCompletedOrderId = new AtomicLong(Long.MIN_VALUE);
+
+    private Long maxValue;
+
+    private volatile boolean running;
+
+    private volatile Throwable failure;
+
+    private Thread producer;
+
+    public KeysetPrefetchingOrderItemReader(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    public void setPredicates(List<OrderPredicate> predicates) {
+        this.predicates = predicates;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        String key = getExecutionContextKey(LAST_COMPLETED_ORDER_ID);
+        long lastKey = executionContext.containsKey(key) ? executionContext.getLong(key) : Long.MIN_VALUE;
+        // Optional inclusive bounds, as set by OrderIdRangePartitioner or HighWatermarkListener.
+        if (executionContext.containsKey(OrderIdRangePartitioner.MIN_VALUE)) {
+            lastKey = Math.max(lastKey, executionContext.getLong(OrderIdRangePartitioner.MIN_VALUE) - 1);
+        }
+        this.lastCompletedOrderId.set(lastKey);
+        this.maxValue = executionContext.containsKey(OrderIdRangePartitioner.MAX_VALUE)
+                ? executionContext.getLong(OrderIdRangePartitioner.MAX_VALUE) : null;
+
+        this.buffer = new ConcurrentLinkedQueue<>();
+        this.freeSlots = new Semaphore(bufferSize);
+        this.filledSlots = new Semaphore(0);
+        this.inFlight = new ConcurrentSkipListSet<>();
+        this.completed = new ConcurrentSkipListSet<>();
+        this.failure = null;
+        this.running = true;
+
+        this.producer = new Thread(this::prefetch, "keyset-order-reader");
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (saveState) {
+            executionContext.putLong(getExecutionContextKey(LAST_COMPLETED_ORDER_ID), checkpoint());
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        this.running = false;
+        if (this.producer != null) {
+            this.producer.interrupt();
+            try {
+                this.producer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.producer = null;
+        }
+    }
+
+    @Override
+    public Order read() throws Exception {
+        filledSlots.acquire();
+        Order order = buffer.poll();
+        if (order == null) {
+            // Only reachable once the producer has finished and flooded filledSlots.
+            filledSlots.release();
+            if (failure != null) {
+                throw new ItemStreamException("Failed to prefetch orders", failure);
+            }
+            return null;
+        }
+        freeSlots.release();
+        return order;
+    }
+
+    private void prefetch() {
+        String sql = String.format(KEYSET_ORDER_SQL, (maxValue == null ? "" : UPPER_BOUND)
+                + (predicates.isEmpty() ? "" : " and " + OrderPredicate.whereClause(predicates)));
+        Map<String, Object> parameters = new HashMap<>(OrderPredicate.parameterValues(predicates));
+        parameters.put("pageSize", pageSize);
+        parameters.put("maxValue", maxValue);
+        long lastKey = lastCompletedOrderId.get();
+        try {
+            while (running) {
+                parameters.put("lastKey", lastKey);
+                List<Order> page = jdbcTemplate.query(sql, parameters, rowMapper);
+                for (Order order : page) {
+                    freeSlots.acquire();
+                    inFlight.add(order.getOrderId());
+                    buffer.offer(order);
+                    filledSlots.release();
+                }
+                if (page.size() < pageSize) {
+                    break;
+                }
+                lastKey = page.get(page.size() - 1).getOrderId();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            filledSlots.release(Integer.MAX_VALUE / 2);
+        }
+    }
+
+    private long checkpoint() {
+        Long highestCompleted = completed.isEmpty() ? null : completed.last();
+        if (highestCompleted == null) {
+            return lastCompletedOrderId.get();
+        }
+        // Ids are handed out in ascending order, so every id below the lowest pending one is done.
+        Long lowestPending = inFlight.ceiling(Long.MIN_VALUE);
+        Long contiguous = lowestPending == null || lowestPending > highestCompleted
+                ? highestCompleted : completed.lower(lowestPending);
+        if (contiguous == null) {
+            return lastCompletedOrderId.get();
+        }
+        completed.headSet(contiguous, false).clear();
+        return lastCompletedOrderId.accumulateAndGet(contiguous, Math::max);
+    }
+
+    // Ids only count as done once the chunk that finished them has committed: a checkpoint saved by
+    // another thread's chunk must not cover an order whose chunk may still roll back. A rolled-back
+    // chunk leaves its ids in flight, holding the checkpoint below them until they are written again.
+    private void complete(List<? extends Order> orders) {
+        List<Long> orderIds = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderIds.add(order.getOrderId());
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markCompleted(orderIds);
+                }
+            });
+        } else {
+            markCompleted(orderIds);
+        }
+    }
+
+    private void markCompleted(Collection<Long> orderIds) {
+        completed.addAll(orderIds);
+        inFlight.removeAll(orderIds);
+    }
+
+    @Override
+    public void beforeProcess(Order order) {
+    }
+
+    @Override
+    public void afterProcess(Order order, Object result) {
+        if (result == null) {
+            complete(Collections.singletonList(order));
+        }
+    }
+
+    @Override
+    public void onProcessError(Order order, Exception e) {
+    }
+
+    @Override
+    public void beforeWrite(List<? extends Order> items) {
+    }
+
+    @Override
+    public void afterWrite(List<? extends Order> items) {
+        complete(items);
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<? extends Order> items) {
+    }
+
+    @Override
+    public void onSkipInRead(Throwable throwable) {
+    }
+
+    @Override
+    public void onSkipInWrite(Order order, Throwable throwable) {
+        complete(Collections.singletonList(order));
+    }
+
+    @Override
+    public void onSkipInProcess(Order order, Throwable throwable) {
+        complete(Collections.singletonList(order));
+    }
+}
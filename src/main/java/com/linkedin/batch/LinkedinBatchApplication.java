@@ -1,18 +1,47 @@
 package com.linkedin.batch;
 
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.jmx.JmxConfig;
+import io.micrometer.jmx.JmxMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.SkipListener;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.BatchConfigurer;
+import org.springframework.batch.core.configuration.annotation.DefaultBatchConfigurer;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.builder.SimpleJobBuilder;
 import org.springframework.batch.core.job.flow.Flow;
 import org.springframework.batch.core.job.flow.JobExecutionDecider;
 import org.springframework.batch.core.job.flow.support.SimpleFlow;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.listener.ExecutionContextPromotionListener;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.FaultTolerantStepBuilder;
+import org.springframework.batch.core.step.skip.LimitCheckingItemSkipPolicy;
+import org.springframework.batch.core.step.tasklet.TaskletStep;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JdbcCursorItemReader;
+import org.springframework.batch.item.database.JdbcPagingItemReader;
 import org.springframework.batch.item.database.PagingQueryProvider;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
 import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
@@ -20,30 +49,53 @@ import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuild
 import org.springframework.batch.item.database.support.SqlPagingQueryProviderFactoryBean;
 import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.FlatFileItemWriter;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
 import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
 import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
 import org.springframework.batch.item.json.JacksonJsonObjectMarshaller;
+import org.springframework.batch.item.json.JsonFileItemWriter;
 import org.springframework.batch.item.json.builder.JsonFileItemWriterBuilder;
 import org.springframework.batch.item.support.builder.CompositeItemProcessorBuilder;
-import org.springframework.batch.item.validator.BeanValidatingItemProcessor;
 import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import javax.sql.DataSource;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @SpringBootApplication
 @EnableBatchProcessing
 public class LinkedinBatchApplication {
 
+    private static final Logger logger = LoggerFactory.getLogger(LinkedinBatchApplication.class);
+
     public static String[] names = new String[]{"orderId", "firstName", "lastName", "email", "cost", "itemId", "itemName", "shipDate"};
     public static String[] tokens = new String[]{"order_id", "first_name", "last_name", "email", "cost", "item_id", "item_name", "ship_date"};
 
@@ -62,19 +114,153 @@ public class LinkedinBatchApplication {
     @Autowired
     public DataSource dataSource;
 
+    @Autowired
+    public JobExplorer jobExplorer;
+
+    @Value("${batch.partition.grid-size:4}")
+    public int gridSize;
+
+    @Value("${batch.tracking-number.namespace:1}")
+    public long trackingNumberNamespace;
+
+    @Value("${batch.chunk.min-size:10}")
+    public int minChunkSize;
+
+    @Value("${batch.chunk.max-size:5000}")
+    public int maxChunkSize;
+
+    @Value("${batch.chunk.target-duration-ms:2000}")
+    public long targetChunkDurationMs;
+
+    @Value("${batch.bulk-insert.mode:MULTI_ROW}")
+    public BulkInsertTrackedOrderItemWriter.Mode bulkInsertMode;
+
+    @Value("${batch.idempotent.enabled:false}")
+    public boolean idempotentEnabled;
+
+    @Value("${batch.idempotent.expected-new-orders:1000000}")
+    public long idempotentExpectedNewOrders;
+
+    @Value("${batch.idempotent.false-positive-rate:0.01}")
+    public double idempotentFalsePositiveRate;
+
+    @Value("${batch.pushdown.enabled:false}")
+    public boolean pushdownEnabled;
+
+    @Value("${batch.columnar.batch-size:1000}")
+    public int columnarBatchSize;
+
+    @Value("${batch.executor.mode:PLATFORM}")
+    public ExecutorMode executorMode;
+
+    @Value("${batch.executor.reserved-connections:2}")
+    public int reservedConnections;
+
+    @Value("${batch.partition.spool-dir:data/partition-spool}")
+    public String partitionSpoolDir;
+
+    @Value("${batch.partition.poll-interval-ms:1000}")
+    public long partitionPollIntervalMs;
+
+    @Value("${batch.partition.heartbeat-interval-ms:10000}")
+    public long partitionHeartbeatIntervalMs;
+
+    @Value("${batch.partition.heartbeat-timeout-ms:30000}")
+    public long partitionHeartbeatTimeoutMs;
+
+    @Value("${batch.partition.timeout-ms:3600000}")
+    public long partitionTimeoutMs;
+
+    @Value("${batch.incremental.enabled:false}")
+    public boolean incrementalEnabled;
+
+    @Value("${batch.incremental.lookback-orders:0}")
+    public long incrementalLookbackOrders;
+
+    @Value("${batch.catalog.enrichment.enabled:false}")
+    public boolean catalogEnrichmentEnabled;
+
+    @Value("${batch.catalog.cache.maximum-size:100000}")
+    public long catalogCacheMaximumSize;
+
+    @Value("${batch.catalog.cache.ttl-ms:600000}")
+    public long catalogCacheTtlMs;
+
+    @Value("${batch.skip.write-limit:0}")
+    public int writeSkipLimit;
+
+    @Value("${batch.csv-partition.input:data/shipped_orders.csv}")
+    public String csvPartitionInput;
+
+    @Value("${batch.csv-partition.file-pattern:*.csv}")
+    public String csvPartitionFilePattern;
+
+    @Value("${batch.csv-partition.grid-size:0}")
+    public int csvPartitionGridSize;
+
+    @Value("${batch.pipeline.chunk-size:1000}")
+    public int pipelineChunkSize;
+
+    @Value("${batch.pipeline.reader-threads:1}")
+    public int pipelineReaderThreads;
+
+    @Value("${batch.pipeline.processor-threads:4}")
+    public int pipelineProcessorThreads;
+
+    @Value("${batch.pipeline.writer-threads:2}")
+    public int pipelineWriterThreads;
+
+    @Value("${batch.pipeline.queue-capacity:4}")
+    public int pipelineQueueCapacity;
+
+    @Value("${batch.analytics.spill-dir:data/analytics-spill}")
+    public String analyticsSpillDir;
+
+    @Value("${batch.analytics.heap-budget-mb:64}")
+    public long analyticsHeapBudgetMb;
+
+    @Value("${batch.analytics.merge-factor:16}")
+    public int analyticsMergeFactor;
+
     public static void main(String[] args) {
         SpringApplication.run(LinkedinBatchApplication.class, args);
     }
 
+    // Static so the configurer does not depend on this class, whose factories need the repository it creates.
+    @Bean
+    public static BatchConfigurer batchConfigurer(DataSource dataSource,
+            @Value("${batch.repository.coalescing.enabled:false}") boolean coalescing,
+            @Value("${batch.repository.coalescing.max-chunks:10}") int maxDeferredChunks,
+            @Value("${batch.repository.coalescing.interval-ms:1000}") long flushIntervalMs) {
+        return new DefaultBatchConfigurer(dataSource) {
+            @Override
+            protected JobRepository createJobRepository() throws Exception {
+                JobRepository jobRepository = super.createJobRepository();
+                if (!coalescing) {
+                    return jobRepository;
+                }
+                CoalescingJobRepository coalescingJobRepository = new CoalescingJobRepository(jobRepository);
+                coalescingJobRepository.setMaxDeferredChunks(maxDeferredChunks);
+                coalescingJobRepository.setFlushInterval(flushIntervalMs, TimeUnit.MILLISECONDS);
+                return coalescingJobRepository;
+            }
+        };
+    }
+
+    @Bean
+    public MeterRegistry jmxMeterRegistry() {
+        JmxMeterRegistry registry = new JmxMeterRegistry(JmxConfig.DEFAULT, Clock.SYSTEM);
+        Metrics.addRegistry(registry);
+        return registry;
+    }
+
     @Bean
     public ItemWriter<Order> flatFileItemWriter() {
         FlatFileItemWriter<Order> flatFileItemWriter = new FlatFileItemWriter<>();
         flatFileItemWriter.setResource(new FileSystemResource("data/shipped_orders_output.csv"));
         DelimitedLineAggregator<Order> lineAggregator = new DelimitedLineAggregator<>();
         lineAggregator.setDelimiter(",");
-        BeanWrapperFieldExtractor<Order> fieldExtractor = new BeanWrapperFieldExtractor<>();
-        fieldExtractor.setNames(names);
-        lineAggregator.setFieldExtractor(fieldExtractor);
+        lineAggregator.setFieldExtractor(new GeneratedFieldExtractor<>(Order.class, names));
         flatFileItemWriter.setLineAggregator(lineAggregator);
         return flatFileItemWriter;
     }
@@ -88,15 +274,101 @@ public class LinkedinBatchApplication {
                 .build();
     }
 
+    @Bean
+    public AsyncFileChannelItemWriter<Order> asyncFlatFileItemWriter() {
+        DelimitedLineAggregator<Order> lineAggregator = new DelimitedLineAggregator<>();
+        lineAggregator.setDelimiter(",");
+        lineAggregator.setFieldExtractor(new GeneratedFieldExtractor<>(Order.class, names));
+
+        AsyncFileChannelItemWriter<Order> writer = new AsyncFileChannelItemWriter<>();
+        writer.setName("asyncFlatFileItemWriter");
+        writer.setResource(new FileSystemResource("data/shipped_orders_output.csv"));
+        writer.setLineAggregator(order -> lineAggregator.aggregate(order) + System.lineSeparator());
+        writer.setBestEffortOrdering(true);
+        // Rolled-back chunks stay in the file as comment lines, which FlatFileItemReader skips.
+        writer.setRolledBackLinePrefix("#");
+        return writer;
+    }
+
+    @Bean
+    public AsyncFileChannelItemWriter<TrackedOrder> asyncJsonFileItemWriter() {
+        return asyncJsonFileItemWriter("asyncJsonItemWriter", "data/shipped_orders_output.json");
+    }
+
+    @Bean
+    public ColumnarOrderItemWriter columnarOrderItemWriter() {
+        ColumnarOrderItemWriter writer = new ColumnarOrderItemWriter();
+        writer.setName("columnarOrderItemWriter");
+        writer.setResource(new FileSystemResource("data/shipped_orders_output.ordc"));
+        return writer;
+    }
+
+    @Bean
+    public ColumnarOrderItemReader columnarOrderItemReader() {
+        ColumnarOrderItemReader reader = new ColumnarOrderItemReader();
+        reader.setName("columnarOrderItemReader");
+        reader.setResource(new FileSystemResource("data/shipped_orders_output.ordc"));
+        return reader;
+    }
+
+    // Needs the ITEM_CATALOG table (data/ITEM_CATALOG.sql); one cache serves every chunk thread.
+    @Bean
+    public CatalogEnrichingItemWriter catalogEnrichingItemWriter() {
+        CatalogEnrichingItemWriter writer = new CatalogEnrichingItemWriter(asyncJsonFileItemWriter(), dataSource,
+                catalogCacheMaximumSize, Duration.ofMillis(catalogCacheTtlMs));
+        writer.setName("catalogEnrichingItemWriter");
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, writer.getCache(), "itemCatalog");
+        return writer;
+    }
+
+    private static AsyncFileChannelItemWriter<TrackedOrder> asyncJsonFileItemWriter(String name, String path) {
+        JacksonJsonObjectMarshaller<TrackedOrder> marshaller = new JacksonJsonObjectMarshaller<>();
+        String lineSeparator = System.lineSeparator();
+
+        AsyncFileChannelItemWriter<TrackedOrder> writer = new AsyncFileChannelItemWriter<>();
+        writer.setName(name);
+        writer.setResource(new FileSystemResource(path));
+        writer.setLineAggregator(marshaller::marshal);
+        writer.setHeader("[" + lineSeparator);
+        writer.setItemSeparator("," + lineSeparator);
+        writer.setFooter(lineSeparator + "]" + lineSeparator);
+        writer.setBestEffortOrdering(true);
+        return writer;
+    }
+
     @Bean
     public ItemWriter<Order> jdbcBatchItemWriterBuilder() {
         return new JdbcBatchItemWriterBuilder<Order>()
                 .dataSource(dataSource)
                 .sql(INSERT_ORDER_SQL)
-                .beanMapped()
+                .itemSqlParameterSourceProvider(new GeneratedSqlParameterSourceProvider<>())
                 .build();
     }
 
+    @Bean
+    public BulkInsertTrackedOrderItemWriter bulkInsertTrackedOrderItemWriter() {
+        BulkInsertTrackedOrderItemWriter writer = new BulkInsertTrackedOrderItemWriter(dataSource);
+        writer.setMode(bulkInsertMode);
+        return writer;
+    }
+
+    // Safe to use on restarts, retries and saveState(false) readers; TRACKED_ORDER.order_id should be indexed.
+    // Step scoped, so each step execution, partitions included, loads and keeps its own filter.
+    @Bean
+    @StepScope
+    public IdempotentTrackedOrderItemWriter idempotentTrackedOrderItemWriter() {
+        IdempotentTrackedOrderItemWriter writer = new IdempotentTrackedOrderItemWriter(bulkInsertTrackedOrderItemWriter(), dataSource);
+        writer.setName("idempotentTrackedOrderItemWriter");
+        writer.setExpectedNewOrders(idempotentExpectedNewOrders);
+        writer.setFalsePositiveRate(idempotentFalsePositiveRate);
+        return writer;
+    }
+
+    // Inserts into TRACKED_ORDER, skipping orders a restarted or retried chunk already inserted if enabled.
+    private ItemWriter<TrackedOrder> trackedOrderItemWriter() {
+        return idempotentEnabled ? idempotentTrackedOrderItemWriter() : bulkInsertTrackedOrderItemWriter();
+    }
+
     @Bean
     public JobExecutionDecider deliveryDecider() {
         return new DeliveryDecider();
@@ -107,30 +379,55 @@ public class LinkedinBatchApplication {
         return new ReceiptDecider();
     }
 
+    @Bean
+    public List<OrderPredicate> orderPredicates() {
+        List<OrderPredicate> predicates = new ArrayList<>();
+        if (pushdownEnabled) {
+            predicates.addAll(OrderPredicate.fromConstraints(Order.class));
+            predicates.addAll(freeShippingItemProcessor().getPredicates());
+        }
+        return predicates;
+    }
+
     @Bean
     public FlatFileItemReader<Order> flatFileItemReader() {
-        FlatFileItemReader<Order> flatFileItemReader = new FlatFileItemReader<>();
+        PredicateFilteringFlatFileItemReader flatFileItemReader = new PredicateFilteringFlatFileItemReader();
         flatFileItemReader.setLinesToSkip(1);
         flatFileItemReader.setResource(new FileSystemResource("data/shipped_orders.csv"));
 
-        DefaultLineMapper<Order> lineMapper = new DefaultLineMapper<>();
         DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
         tokenizer.setNames(tokens);
 
-        lineMapper.setLineTokenizer(tokenizer);
+        flatFileItemReader.setLineTokenizer(tokenizer);
 
-        lineMapper.setFieldSetMapper(new OrderFieldSetMapper());
+        flatFileItemReader.setFieldSetMapper(new OrderFieldSetMapper());
 
-        flatFileItemReader.setLineMapper(lineMapper);
+        flatFileItemReader.setPredicates(orderPredicates());
         return flatFileItemReader;
     }
 
+    @Bean
+    public MappedCsvOrderItemReader mappedFlatFileItemReader() {
+        MappedCsvOrderItemReader reader = new MappedCsvOrderItemReader();
+        reader.setName("mappedFlatFileItemReader");
+        reader.setResource(new FileSystemResource("data/shipped_orders.csv"));
+        reader.setLinesToSkip(1);
+        reader.setPredicates(orderPredicates());
+        return reader;
+    }
+
     @Bean
     public ItemReader<Order> jdbcCursorItemReaderBuilder() {
+        List<OrderPredicate> predicates = orderPredicates();
+        String sql = predicates.isEmpty() ? SELECT_ORDER_SQL
+                : SELECT_ORDER_SQL.replace(" order by ", " where " + OrderPredicate.whereClause(predicates) + " order by ");
+        ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+        MapSqlParameterSource parameters = new MapSqlParameterSource(OrderPredicate.parameterValues(predicates));
         return new JdbcCursorItemReaderBuilder<Order>()
                 .dataSource(dataSource)
                 .name("jdbcCursorItemReader")
-                .sql(SELECT_ORDER_SQL)
+                .sql(NamedParameterUtils.substituteNamedParameters(parsedSql, parameters))
+                .queryArguments(NamedParameterUtils.buildValueArray(parsedSql, parameters, null))
                 .rowMapper(new OrderRowMapper())
                 .build();
     }
@@ -140,6 +437,9 @@ public class LinkedinBatchApplication {
         SqlPagingQueryProviderFactoryBean factoryBean = new SqlPagingQueryProviderFactoryBean();
         factoryBean.setSelectClause("select order_id, first_name, last_name, email, cost, item_id, item_name, ship_date");
         factoryBean.setFromClause("from SHIPPED_ORDER");
+        if (!orderPredicates().isEmpty()) {
+            factoryBean.setWhereClause("where " + OrderPredicate.whereClause(orderPredicates()));
+        }
         factoryBean.setSortKey("order_id");
         factoryBean.setDataSource(dataSource);
         return factoryBean.getObject();
@@ -151,66 +451,568 @@ public class LinkedinBatchApplication {
                 .dataSource(dataSource)
                 .name("jdbcCursorItemReader")
                 .queryProvider(queryProvider())
+                .parameterValues(OrderPredicate.parameterValues(orderPredicates()))
                 .rowMapper(new OrderRowMapper())
                 .pageSize(10)
                 .saveState(false)
                 .build();
     }
 
+    @Bean
+    public KeysetPrefetchingOrderItemReader keysetOrderItemReader() {
+        KeysetPrefetchingOrderItemReader reader = new KeysetPrefetchingOrderItemReader(dataSource);
+        reader.setName("keysetOrderItemReader");
+        reader.setPageSize(1000);
+        reader.setBufferSize(5000);
+        reader.setPredicates(orderPredicates());
+        return reader;
+    }
+
     @Bean
     public TaskExecutor taskExecutor() {
+        if (useVirtualThreads()) {
+            // One virtual thread per chunk; the limit keeps concurrent chunk transactions within the connection pool.
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("chunk-"));
+            executor.setConcurrencyLimit(chunkConcurrency());
+            return executor;
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(10);
+        monitor(executor, "taskExecutor");
         return executor;
     }
 
+    @Bean
+    public TaskExecutor flowTaskExecutor() {
+        if (useVirtualThreads()) {
+            return new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("flow-"));
+        }
+        return new SimpleAsyncTaskExecutor();
+    }
+
+    private boolean useVirtualThreads() {
+        if (executorMode != ExecutorMode.VIRTUAL) {
+            return false;
+        }
+        if (!VirtualThreads.isSupported()) {
+            logger.warn("batch.executor.mode=VIRTUAL needs Java 21 or later; falling back to platform threads");
+            return false;
+        }
+        return true;
+    }
+
+    // Each chunk holds a connection for its transaction; leave some for the job repository and readers.
+    private int chunkConcurrency() {
+        int poolSize = 10;
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            logger.warn("Cannot determine the connection pool size, assuming {}", poolSize, e);
+        }
+        return Math.max(1, poolSize - reservedConnections);
+    }
+
+    private int chunkThrottleLimit() {
+        // TaskExecutorRepeatTemplate's default of 4 would otherwise cap the virtual-thread mode.
+        return useVirtualThreads() ? chunkConcurrency() : 4;
+    }
+
+    private static void monitor(ThreadPoolTaskExecutor executor, String name) {
+        Gauge.builder("batch.executor.queue.depth", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .tag("executor", name)
+                .register(Metrics.globalRegistry);
+        Gauge.builder("batch.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("executor", name)
+                .register(Metrics.globalRegistry);
+    }
+
+    private static FaultTolerantStepBuilder<Order, TrackedOrder> withMetrics(String stepName,
+            FaultTolerantStepBuilder<Order, TrackedOrder> builder) {
+        OrderPipelineMetricsListener metrics = new OrderPipelineMetricsListener(stepName, Metrics.globalRegistry);
+        builder.listener((ItemReadListener<Order>) metrics);
+        builder.listener((ItemProcessListener<Order, TrackedOrder>) metrics);
+        builder.listener((ItemWriteListener<TrackedOrder>) metrics);
+        builder.listener((ChunkListener) metrics);
+        builder.listener((RetryListener) metrics);
+        builder.listener((SkipListener<Order, TrackedOrder>) metrics);
+        return builder;
+    }
+
+    @Bean
+    public AdaptiveCompletionPolicy chunkBasedStepCompletionPolicy() {
+        AdaptiveCompletionPolicy policy = new AdaptiveCompletionPolicy("chunkBasedStep", Metrics.globalRegistry);
+        policy.setMinChunkSize(minChunkSize);
+        policy.setMaxChunkSize(maxChunkSize);
+        policy.setTargetChunkDuration(targetChunkDurationMs, TimeUnit.MILLISECONDS);
+        return policy;
+    }
+
     @Bean
     public Step chunkBasedStep() throws Exception {
-        return this.stepBuilderFactory.get("chunkBasedStep")
-                .<Order, TrackedOrder>chunk(10)
-                .reader(jdbcPagingItemReaderBuilder())
-                .processor(compositeItemProcessor())
-                .faultTolerant()
+        AdaptiveCompletionPolicy completionPolicy = chunkBasedStepCompletionPolicy();
+        TaskletStep step = withMetrics("chunkBasedStep", this.stepBuilderFactory.get("chunkBasedStep")
+                .<Order, TrackedOrder>chunk(completionPolicy)
+                .reader(keysetOrderItemReader())
+                .processor(memoizingItemProcessor())
+                .faultTolerant())
 //                .skip(OrderProcessingException.class)
 //                .skipLimit(5)
                 .retry(OrderProcessingException.class)
                 .retryLimit(3)
 //                .listener(new CustomSkipListener())
                 .listener(new CustomRetryListener())
-                .writer(jsonFileItemWriterBuilder())
+                .listener((RetryListener) completionPolicy)
+                .listener((ChunkListener) completionPolicy)
+                .listener((ItemWriteListener<Object>) completionPolicy)
+                .writer(writeSkipLimit > 0 ? bisectingSkipItemWriter() : chunkBasedStepWriter())
+                .listener((StepExecutionListener) highWatermarkListener())
+                .taskExecutor(taskExecutor())
+                .throttleLimit(chunkThrottleLimit())
+                .build();
+        return writeSkipLimit > 0 ? BisectingSkipItemWriter.recordContributions(step) : step;
+    }
+
+    // Retries and rollback rescans reuse what the chain already made of an order in the same chunk.
+    @Bean
+    public MemoizingItemProcessor<Order, TrackedOrder> memoizingItemProcessor() {
+        MemoizingItemProcessor<Order, TrackedOrder> processor = new MemoizingItemProcessor<>(
+                "compositeItemProcessor", compositeItemProcessor(), Order::getOrderId, Metrics.globalRegistry);
+        processor.setMaxEntries(maxChunkSize);
+        return processor;
+    }
+
+    private ItemWriter<TrackedOrder> chunkBasedStepWriter() {
+        return catalogEnrichmentEnabled ? catalogEnrichingItemWriter() : asyncJsonFileItemWriter();
+    }
+
+    // Skips rows TRACKED_ORDER rejects by bisecting the chunk instead of rescanning it item by item.
+    // With a write skip limit, chunkBasedStep loads TRACKED_ORDER through this writer instead of
+    // writing JSON: the bulk insert fails inside write() and rolls back to a savepoint per attempt,
+    // which the asynchronous file writers cannot do.
+    @Bean
+    public BisectingSkipItemWriter<TrackedOrder> bisectingSkipItemWriter() {
+        BisectingSkipItemWriter<TrackedOrder> writer = new BisectingSkipItemWriter<>(trackedOrderItemWriter());
+        writer.setName("bisectingSkipItemWriter");
+        writer.setDataSource(dataSource);
+        writer.setSkipPolicy(new LimitCheckingItemSkipPolicy(writeSkipLimit,
+                Collections.singletonMap(DataIntegrityViolationException.class, true)));
+        writer.setSkipListeners(Collections.singletonList(new CustomSkipListener()));
+        return writer;
+    }
+
+    @Bean
+    public StagedPipelineTasklet<Order, TrackedOrder> stagedPipelineTasklet() throws Exception {
+        StagedPipelineTasklet<Order, TrackedOrder> tasklet = new StagedPipelineTasklet<>(
+                keysetOrderItemReader(), compositeItemProcessor(), asyncJsonFileItemWriter());
+        tasklet.setChunkSize(pipelineChunkSize);
+        tasklet.setReaderThreads(pipelineReaderThreads);
+        tasklet.setProcessorThreads(pipelineProcessorThreads);
+        tasklet.setQueueCapacity(pipelineQueueCapacity);
+        // The retries chunkBasedStep makes for OrderProcessingException.
+        RetryTemplate retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(new SimpleRetryPolicy(3, Collections.singletonMap(OrderProcessingException.class, true)));
+        tasklet.setRetryTemplate(retryTemplate);
+        return tasklet;
+    }
+
+    // Same reader, processors and writer as chunkBasedStep, with reading, processing and writing overlapped.
+    @Bean
+    public Step stagedPipelineStep() throws Exception {
+        return this.stepBuilderFactory.get("stagedPipelineStep")
+                .tasklet(stagedPipelineTasklet())
+                .stream(stagedPipelineTasklet())
                 .taskExecutor(taskExecutor())
+                .throttleLimit(pipelineWriterThreads)
                 .build();
     }
 
+    @Bean
+    public Job stagedPipelineJob() throws Exception {
+        return this.jobBuilderFactory.get("stagedPipelineJob").start(stagedPipelineStep()).build();
+    }
+
+    @Bean
+    public Partitioner orderIdRangePartitioner() {
+        return new OrderIdRangePartitioner(dataSource);
+    }
+
+    @Bean
+    @StepScope
+    public JdbcPagingItemReader<Order> partitionedOrderItemReader(
+            @Value("#{stepExecutionContext['minValue']}") Long minValue,
+            @Value("#{stepExecutionContext['maxValue']}") Long maxValue) throws Exception {
+        SqlPagingQueryProviderFactoryBean factoryBean = new SqlPagingQueryProviderFactoryBean();
+        factoryBean.setSelectClause("select order_id, first_name, last_name, email, cost, item_id, item_name, ship_date");
+        factoryBean.setFromClause("from SHIPPED_ORDER");
+        List<OrderPredicate> predicates = orderPredicates();
+        factoryBean.setWhereClause("where order_id >= :minValue and order_id <= :maxValue"
+                + (predicates.isEmpty() ? "" : " and " + OrderPredicate.whereClause(predicates)));
+        factoryBean.setSortKey("order_id");
+        factoryBean.setDataSource(dataSource);
+
+        Map<String, Object> parameterValues = new HashMap<>(OrderPredicate.parameterValues(predicates));
+        parameterValues.put(OrderIdRangePartitioner.MIN_VALUE, minValue);
+        parameterValues.put(OrderIdRangePartitioner.MAX_VALUE, maxValue);
+
+        return new JdbcPagingItemReaderBuilder<Order>()
+                .dataSource(dataSource)
+                .name("partitionedOrderItemReader")
+                .queryProvider(factoryBean.getObject())
+                .parameterValues(parameterValues)
+                .rowMapper(new OrderRowMapper())
+                .pageSize(100)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public JsonFileItemWriter<TrackedOrder> partitionedJsonFileItemWriter(
+            @Value("#{stepExecutionContext['minValue']}") Long minValue,
+            @Value("#{stepExecutionContext['maxValue']}") Long maxValue) {
+        return new JsonFileItemWriterBuilder<TrackedOrder>()
+                .jsonObjectMarshaller(new JacksonJsonObjectMarshaller<>())
+                .resource(new FileSystemResource("data/shipped_orders_output_" + minValue + "-" + maxValue + ".json"))
+                .name("partitionedJsonItemWriter")
+                .build();
+    }
+
+    @Bean
+    public TaskExecutor partitionTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(gridSize);
+        executor.setMaxPoolSize(gridSize);
+        executor.setThreadNamePrefix("partition-");
+        monitor(executor, "partitionTaskExecutor");
+        return executor;
+    }
+
+    @Bean
+    public Step partitionedWorkerStep() throws Exception {
+        return withMetrics("partitionedWorkerStep", this.stepBuilderFactory.get("partitionedWorkerStep")
+                .<Order, TrackedOrder>chunk(10)
+                .reader(partitionedOrderItemReader(null, null))
+                .processor(compositeItemProcessor())
+                .faultTolerant())
+                .retry(OrderProcessingException.class)
+                .retryLimit(3)
+                .listener(new CustomRetryListener())
+                .writer(partitionedJsonFileItemWriter(null, null))
+                .build();
+    }
+
+    @Bean
+    public Step partitionedChunkBasedStep() throws Exception {
+        return this.stepBuilderFactory.get("partitionedChunkBasedStep")
+                .partitioner(partitionedWorkerStep().getName(), orderIdRangePartitioner())
+                .step(partitionedWorkerStep())
+                .gridSize(gridSize)
+                .taskExecutor(partitionTaskExecutor())
+                .build();
+    }
+
+    // A file or a directory of files; each partition reads one byte range of one file.
+    @Bean
+    public CsvByteRangePartitioner csvByteRangePartitioner() {
+        CsvByteRangePartitioner partitioner = new CsvByteRangePartitioner(Paths.get(csvPartitionInput));
+        partitioner.setFilePattern(csvPartitionFilePattern);
+        return partitioner;
+    }
+
+    @Bean
+    @StepScope
+    public MappedCsvOrderItemReader csvRangeItemReader(@Value("#{stepExecutionContext['fileName']}") String fileName) {
+        MappedCsvOrderItemReader reader = new MappedCsvOrderItemReader();
+        reader.setName("csvRangeItemReader");
+        reader.setResource(new FileSystemResource(fileName));
+        reader.setLinesToSkip(1);
+        reader.setPredicates(orderPredicates());
+        return reader;
+    }
+
+    @Bean
+    @StepScope
+    public JsonFileItemWriter<TrackedOrder> csvRangeJsonFileItemWriter(
+            @Value("#{stepExecutionContext['fileName']}") String fileName,
+            @Value("#{stepExecutionContext['startOffset']}") Long startOffset) {
+        String baseName = Paths.get(fileName).getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        return new JsonFileItemWriterBuilder<TrackedOrder>()
+                .jsonObjectMarshaller(new JacksonJsonObjectMarshaller<>())
+                .resource(new FileSystemResource("data/" + baseName + "_output_" + startOffset + ".json"))
+                .name("csvRangeJsonItemWriter")
+                .build();
+    }
+
+    private int csvGridSize() {
+        return csvPartitionGridSize > 0 ? csvPartitionGridSize : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Bean
+    public TaskExecutor csvPartitionTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(csvGridSize());
+        executor.setMaxPoolSize(csvGridSize());
+        executor.setThreadNamePrefix("csv-partition-");
+        monitor(executor, "csvPartitionTaskExecutor");
+        return executor;
+    }
+
+    @Bean
+    public Step csvRangeWorkerStep() throws Exception {
+        return withMetrics("csvRangeWorkerStep", this.stepBuilderFactory.get("csvRangeWorkerStep")
+                .<Order, TrackedOrder>chunk(1000)
+                .reader(csvRangeItemReader(null))
+                .processor(compositeItemProcessor())
+                .faultTolerant())
+                .retry(OrderProcessingException.class)
+                .retryLimit(3)
+                .listener(new CustomRetryListener())
+                .writer(csvRangeJsonFileItemWriter(null, null))
+                .build();
+    }
+
+    // The input split by size into one partition per core, by default.
+    @Bean
+    public Step csvPartitionedStep() throws Exception {
+        return this.stepBuilderFactory.get("csvPartitionedStep")
+                .partitioner(csvRangeWorkerStep().getName(), csvByteRangePartitioner())
+                .step(csvRangeWorkerStep())
+                .gridSize(csvGridSize())
+                .taskExecutor(csvPartitionTaskExecutor())
+                .build();
+    }
+
+    @Bean
+    public Job csvPartitionedJob() throws Exception {
+        return this.jobBuilderFactory.get("csvPartitionedJob").start(csvPartitionedStep()).build();
+    }
+
+    @Bean
+    public PartitionChannel partitionChannel() {
+        return new SpoolDirectoryPartitionChannel(Paths.get(partitionSpoolDir));
+    }
+
+    // Same partitions as partitionedChunkBasedStep, executed by RemotePartitionWorkers in other JVMs.
+    // Only defined with batch.partition.remote.enabled=true: without workers the manager would wait
+    // out its timeout on every start-up run of all jobs.
+    @Bean
+    @ConditionalOnProperty(name = "batch.partition.remote.enabled", havingValue = "true")
+    public Step remotePartitionedStep() throws Exception {
+        RemotePartitionHandler partitionHandler = new RemotePartitionHandler(partitionedWorkerStep().getName(),
+                partitionChannel(), jobExplorer);
+        partitionHandler.setGridSize(gridSize);
+        partitionHandler.setPollInterval(partitionPollIntervalMs, TimeUnit.MILLISECONDS);
+        partitionHandler.setHeartbeatTimeout(partitionHeartbeatTimeoutMs, TimeUnit.MILLISECONDS);
+        partitionHandler.setTimeout(partitionTimeoutMs, TimeUnit.MILLISECONDS);
+        return this.stepBuilderFactory.get("remotePartitionedStep")
+                .partitioner(partitionedWorkerStep().getName(), orderIdRangePartitioner())
+                .partitionHandler(partitionHandler)
+                .build();
+    }
+
+    // Worker JVMs also need spring.batch.job.enabled=false so they do not launch jobs of their own.
+    @Bean
+    @ConditionalOnProperty(name = "batch.partition.worker.enabled", havingValue = "true")
+    public RemotePartitionWorker remotePartitionWorker(JobRepository jobRepository, BeanFactory beanFactory,
+            @Value("${batch.partition.worker.idle-timeout-ms:-1}") long idleTimeoutMs) {
+        RemotePartitionWorker worker = new RemotePartitionWorker(partitionChannel(), jobExplorer, jobRepository, beanFactory);
+        worker.setPollInterval(partitionPollIntervalMs, TimeUnit.MILLISECONDS);
+        worker.setHeartbeatInterval(partitionHeartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        worker.setHeartbeatTimeout(partitionHeartbeatTimeoutMs, TimeUnit.MILLISECONDS);
+        worker.setIdleTimeout(idleTimeoutMs, TimeUnit.MILLISECONDS);
+        return worker;
+    }
+
     @Bean
     public ItemProcessor<Order, TrackedOrder> compositeItemProcessor() {
         return new CompositeItemProcessorBuilder<Order, TrackedOrder>()
-                .delegates(orderValidatingItemProcessor(), trackedOrderItemProcessor(), freeShippingItemProcessor())
+                .delegates(new FilterCountingItemProcessor<>("orderValidatingItemProcessor", orderValidatingItemProcessor(), Metrics.globalRegistry),
+                        trackedOrderItemProcessor(),
+                        new FilterCountingItemProcessor<>("freeShippingItemProcessor", freeShippingItemProcessor(), Metrics.globalRegistry))
                 .build();
     }
 
+    @Bean
+    public TrackingNumberGenerator trackingNumberGenerator() {
+        return new OrderKeyedTrackingNumberGenerator(trackingNumberNamespace);
+    }
+
     @Bean
     public ItemProcessor<Order, TrackedOrder> trackedOrderItemProcessor() {
-        return new TrackedOrderItemProcessor();
+        return new TrackedOrderItemProcessor(trackingNumberGenerator());
     }
 
     @Bean
     public ItemProcessor<Order, Order> orderValidatingItemProcessor() {
-        BeanValidatingItemProcessor<Order> itemProcessor = new BeanValidatingItemProcessor<>();
+        CompiledValidatingItemProcessor<Order> itemProcessor = new CompiledValidatingItemProcessor<>(Order.class);
         itemProcessor.setFilter(true);
         return itemProcessor;
     }
 
     @Bean
-    public ItemProcessor<TrackedOrder, TrackedOrder> freeShippingItemProcessor() {
+    public FreeShippingItemProcessor freeShippingItemProcessor() {
         return new FreeShippingItemProcessor();
     }
 
 
+    @Bean
+    public JdbcOrderBatchItemReader orderBatchItemReader() {
+        JdbcOrderBatchItemReader reader = new JdbcOrderBatchItemReader(dataSource);
+        reader.setName("orderBatchItemReader");
+        reader.setBatchSize(columnarBatchSize);
+        reader.setPredicates(orderPredicates());
+        return reader;
+    }
+
+    @Bean
+    public ItemProcessor<OrderBatch, OrderBatch> orderBatchItemProcessor() {
+        // Tracking numbers are generated last so filtered rows never pay for one.
+        return new CompositeItemProcessorBuilder<OrderBatch, OrderBatch>()
+                .delegates(new ValidatingOrderBatchProcessor(),
+                        new FreeShippingOrderBatchProcessor(),
+                        new TrackingOrderBatchProcessor(trackingNumberGenerator()))
+                .build();
+    }
+
+    @Bean
+    public OrderBatchItemWriter orderBatchItemWriter() {
+        return new OrderBatchItemWriter(asyncJsonFileItemWriter("columnarJsonItemWriter", "data/shipped_orders_output_columnar.json"));
+    }
+
+    @Bean
+    public Step columnarStep() {
+        // Each item is a whole OrderBatch, so one item per chunk keeps the commit interval at batch size.
+        return this.stepBuilderFactory.get("columnarStep")
+                .<OrderBatch, OrderBatch>chunk(1)
+                .reader(orderBatchItemReader())
+                .processor(orderBatchItemProcessor())
+                .writer(orderBatchItemWriter())
+                .build();
+    }
+
+    @Bean
+    public Job columnarJob() {
+        return this.jobBuilderFactory.get("columnarJob").start(columnarStep()).build();
+    }
+
+    @Bean
+    public Step shippedOrderAggregationStep() {
+        return orderAggregationStep("shippedOrderAggregationStep", "SHIPPED_ORDER");
+    }
+
+    @Bean
+    public Step shippedOrderAggregateMergeStep() {
+        return aggregateMergeStep("shippedOrderAggregateMergeStep", "shippedOrderAggregationStep",
+                "data/shipped_order_analytics.csv");
+    }
+
+    @Bean
+    public Step trackedOrderAggregationStep() {
+        return orderAggregationStep("trackedOrderAggregationStep", "TRACKED_ORDER");
+    }
+
+    @Bean
+    public Step trackedOrderAggregateMergeStep() {
+        return aggregateMergeStep("trackedOrderAggregateMergeStep", "trackedOrderAggregationStep",
+                "data/tracked_order_analytics.csv");
+    }
+
+    // Revenue and order counts per itemName and per shipDate, for both order tables.
+    @Bean
+    public Job orderAnalyticsJob() {
+        return this.jobBuilderFactory.get("orderAnalyticsJob")
+                .incrementer(new RunIdIncrementer())
+                .start(shippedOrderAggregationStep())
+                .next(shippedOrderAggregateMergeStep())
+                .next(trackedOrderAggregationStep())
+                .next(trackedOrderAggregateMergeStep())
+                .build();
+    }
+
+    private Step orderAggregationStep(String name, String table) {
+        JdbcCursorItemReader<Order> reader = new JdbcCursorItemReaderBuilder<Order>()
+                .dataSource(dataSource)
+                .name(name + "Reader")
+                .sql("select order_id, first_name, last_name, email, cost, item_id, item_name, ship_date from "
+                        + table + " order by order_id")
+                .rowMapper(new OrderRowMapper())
+                .build();
+        // The table is checkpointed by replaying the reader from the last spill.
+        SpillingAggregationItemWriter<Order> writer = orderAggregationWriter(name);
+        writer.setReplayFrom(reader);
+        ExecutionContextPromotionListener promotionListener = new ExecutionContextPromotionListener();
+        promotionListener.setKeys(new String[]{writer.getRunsKey()});
+        return this.stepBuilderFactory.get(name)
+                .<Order, Order>chunk(1000)
+                .reader(reader)
+                .writer(writer)
+                .listener(promotionListener)
+                .build();
+    }
+
+    // The merge step finds the runs under the key the aggregation step's writer promoted.
+    private Step aggregateMergeStep(String name, String aggregationStepName, String path) {
+        DelimitedLineAggregator<OrderAggregate> lineAggregator = new DelimitedLineAggregator<>();
+        lineAggregator.setDelimiter(",");
+        lineAggregator.setFieldExtractor(new GeneratedFieldExtractor<>(OrderAggregate.class,
+                new String[]{"dimension", "value", "count", "revenue"}));
+        FlatFileItemWriter<OrderAggregate> writer = new FlatFileItemWriter<>();
+        writer.setName(name + "Writer");
+        writer.setResource(new FileSystemResource(path));
+        writer.setHeaderCallback(header -> header.write("dimension,value,count,revenue"));
+        writer.setLineAggregator(lineAggregator);
+        writer.setSaveState(false);
+        AggregateMergeTasklet tasklet = new AggregateMergeTasklet(orderAggregationWriter(aggregationStepName).getRunsKey(), writer);
+        return this.stepBuilderFactory.get(name)
+                .tasklet(tasklet)
+                .listener(tasklet)
+                .build();
+    }
+
+    private SpillingAggregationItemWriter<Order> orderAggregationWriter(String stepName) {
+        Map<String, Function<? super Order, ?>> dimensions = new LinkedHashMap<>();
+        dimensions.put("itemName", Order::getItemName);
+        dimensions.put("shipDate", order -> order.getShipDate() == null ? null
+                : Instant.ofEpochMilli(order.getShipDate().getTime()).atZone(ZoneId.systemDefault()).toLocalDate());
+        SpillingAggregationItemWriter<Order> writer = new SpillingAggregationItemWriter<>(Order::getCost);
+        writer.setName(stepName + "Writer");
+        writer.setDimensions(dimensions);
+        writer.setSpillDirectory(Paths.get(analyticsSpillDir));
+        writer.setHeapBudgetBytes(analyticsHeapBudgetMb * 1024 * 1024);
+        writer.setMergeFactor(analyticsMergeFactor);
+        return writer;
+    }
+
+    @Bean
+    public HighWatermarkListener highWatermarkListener() {
+        HighWatermarkListener listener = new HighWatermarkListener(dataSource, jobExplorer);
+        listener.setLookback(incrementalLookbackOrders);
+        return listener;
+    }
+
+    // Run with fullRebuild=true to ignore the previous watermark and read the whole table again.
     @Bean
     public Job job() throws Exception {
-        return this.jobBuilderFactory.get("job").start(chunkBasedStep()).build();
+        SimpleJobBuilder builder = this.jobBuilderFactory.get("job")
+                .incrementer(new RunIdIncrementer())
+                .start(chunkBasedStep());
+        if (incrementalEnabled) {
+            builder.listener(highWatermarkListener());
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public Job partitionedJob() throws Exception {
+        return this.jobBuilderFactory.get("partitionedJob").start(partitionedChunkBasedStep()).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "batch.partition.remote.enabled", havingValue = "true")
+    public Job remotePartitionedJob() throws Exception {
+        return this.jobBuilderFactory.get("remotePartitionedJob").start(remotePartitionedStep()).build();
     }
 
     @Bean
@@ -355,7 +1157,7 @@ public class LinkedinBatchApplication {
     public Job deliverPackageJob() {
         return this.jobBuilderFactory.get("deliverPackageJob")
                 .start(packageItemStep())
-                .split(new SimpleAsyncTaskExecutor())
+                .split(flowTaskExecutor())
                 .add(deliveryFlow(), billingFlow())
                 .end()
                 .build();
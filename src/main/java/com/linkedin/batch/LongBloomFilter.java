@@ -0,0 +1,73 @@
+package com.linkedin.batch;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// A Bloom filter over long keys, kept in a direct buffer so tens of millions of ids cost no heap
+// or GC time. Bits are set with an atomic OR, so concurrent chunks can add without locking.
+public class LongBloomFilter {
+
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // A direct ByteBuffer is indexed by int, which caps the filter at 2^31 bytes.
+    private static final long MAX_BITS = (long) ((Integer.MAX_VALUE - Long.BYTES) & ~7) * Byte.SIZE;
+
+    private final ByteBuffer words;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    public LongBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bits = Math.min(MAX_BITS, Math.max(Long.SIZE, (bits + Long.SIZE - 1) / Long.SIZE * Long.SIZE));
+        this.bitCount = bits;
+        this.hashCount = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        // Atomic access through the VarHandle needs 8-byte aligned words.
+        this.words = ByteBuffer.allocateDirect((int) (bits / Byte.SIZE) + Long.BYTES).alignedSlice(Long.BYTES);
+    }
+
+    public void put(long key) {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1 ^ key);
+        long combined = hash1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            long mask = 1L << bit;
+            int offset = (int) (bit >>> 6) << 3;
+            if (((long) WORDS.getAcquire(words, offset) & mask) == 0) {
+                WORDS.getAndBitwiseOr(words, offset, mask);
+            }
+            combined += hash2;
+        }
+    }
+
+    // False means the key was never added; true means it probably was.
+    public boolean mightContain(long key) {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1 ^ key);
+        long combined = hash1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            if (((long) WORDS.getAcquire(words, (int) (bit >>> 6) << 3) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += hash2;
+        }
+        return true;
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    // The splitmix64 finalizer; order ids are sequential, so they need a full avalanche before indexing.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
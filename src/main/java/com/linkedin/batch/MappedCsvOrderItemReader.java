@@ -0,0 +1,445 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+public class MappedCsvOrderItemReader extends ItemStreamSupport implements ItemStreamReader<Order> {
+
+    private static final String BYTE_OFFSET = "byteOffset";
+
+    private static final int ORDER_ID = 0;
+    private static final int FIRST_NAME = 1;
+    private static final int LAST_NAME = 2;
+    private static final int EMAIL = 3;
+    private static final int COST = 4;
+    private static final int ITEM_ID = 5;
+    private static final int ITEM_NAME = 6;
+    private static final int SHIP_DATE = 7;
+
+    private Resource resource;
+
+    private int linesToSkip;
+
+    private byte delimiter = ',';
+
+    private long windowSize = 256L << 20;
+
+    private boolean saveState = true;
+
+    private List<OrderPredicate> predicates = Collections.emptyList();
+
+    private int[] predicateColumns = new int[0];
+
+    private FileChannel channel;
+
+    private long fileSize;
+
+    private long endOffset;
+
+    private MappedByteBuffer window;
+
+    private long windowStart;
+
+    private long position;
+
+    private long lineNumber;
+
+    private int[] columns = {ORDER_ID, FIRST_NAME, LAST_NAME, EMAIL, COST, ITEM_ID, ITEM_NAME, SHIP_DATE};
+
+    private int requiredFields = columns.length;
+
+    private int[] fieldStart = new int[16];
+
+    private int[] fieldEnd = new int[16];
+
+    private boolean[] fieldQuoted = new boolean[16];
+
+    private byte[] scratch = new byte[256];
+
+    private ZoneId zone = ZoneId.systemDefault();
+
+    private int lastDateKey = -1;
+
+    private long lastDateMillis;
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    public void setLinesToSkip(int linesToSkip) {
+        this.linesToSkip = linesToSkip;
+    }
+
+    public void setDelimiter(char delimiter) {
+        this.delimiter = (byte) delimiter;
+    }
+
+    public void setWindowSize(long windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    public void setPredicates(List<OrderPredicate> predicates) {
+        this.predicates = predicates;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        try {
+            this.channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+            this.fileSize = channel.size();
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open " + resource, e);
+        }
+        this.window = null;
+        this.position = 0;
+        this.lineNumber = 0;
+
+        for (int i = 0; i < linesToSkip && position < fileSize; i++) {
+            int fieldCount = scanRecord();
+            if (i == 0) {
+                resolveColumns(fieldCount);
+            }
+        }
+
+        this.predicateColumns = new int[predicates.size()];
+        for (int i = 0; i < predicateColumns.length; i++) {
+            int token = Arrays.asList(LinkedinBatchApplication.tokens).indexOf(predicates.get(i).getColumn());
+            if (token < 0) {
+                throw new ItemStreamException("Unknown predicate column " + predicates.get(i).getColumn());
+            }
+            predicateColumns[i] = columns[token];
+        }
+
+        // Optional byte range, as set by CsvByteRangePartitioner; the header is still read above for the columns.
+        if (executionContext.containsKey(CsvByteRangePartitioner.START_OFFSET)) {
+            this.position = Math.max(position, executionContext.getLong(CsvByteRangePartitioner.START_OFFSET));
+        }
+        this.endOffset = executionContext.containsKey(CsvByteRangePartitioner.END_OFFSET)
+                ? Math.min(fileSize, executionContext.getLong(CsvByteRangePartitioner.END_OFFSET)) : fileSize;
+
+        String key = getExecutionContextKey(BYTE_OFFSET);
+        if (executionContext.containsKey(key)) {
+            this.position = Math.max(position, executionContext.getLong(key));
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (saveState) {
+            executionContext.putLong(getExecutionContextKey(BYTE_OFFSET), position);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        this.window = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to close " + resource, e);
+            }
+            channel = null;
+        }
+    }
+
+    @Override
+    public Order read() throws Exception {
+        while (true) {
+            // A record starting before endOffset is read whole, even if it runs past it.
+            if (position >= endOffset) {
+                return null;
+            }
+            int fieldCount = scanRecord();
+            if (fieldCount == 1 && fieldStart[0] == fieldEnd[0]) {
+                continue;
+            }
+            if (fieldCount < requiredFields) {
+                throw parseException("Expected " + requiredFields + " fields but found " + fieldCount);
+            }
+            if (!rejected()) {
+                break;
+            }
+        }
+
+        Order order = new Order();
+        order.setOrderId(parseLong(columns[ORDER_ID]));
+        order.setFirstName(parseString(columns[FIRST_NAME]));
+        order.setLastName(parseString(columns[LAST_NAME]));
+        order.setEmail(parseString(columns[EMAIL]));
+        order.setCost(parseDecimal(columns[COST]));
+        order.setItemId(parseString(columns[ITEM_ID]));
+        order.setItemName(parseString(columns[ITEM_NAME]));
+        order.setShipDate(parseDate(columns[SHIP_DATE]));
+        return order;
+    }
+
+    private boolean rejected() {
+        for (int i = 0; i < predicateColumns.length; i++) {
+            if (!predicates.get(i).test(parseString(predicateColumns[i]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int scanRecord() {
+        ensureMapped(position);
+        int fieldCount = scanRecordInWindow();
+        if (fieldCount < 0) {
+            if (windowStart == position) {
+                throw parseException("Record is larger than the mapping window of " + windowSize + " bytes");
+            }
+            map(position);
+            fieldCount = scanRecordInWindow();
+            if (fieldCount < 0) {
+                throw parseException("Record is larger than the mapping window of " + windowSize + " bytes");
+            }
+        }
+        lineNumber++;
+        return fieldCount;
+    }
+
+    // Returns -1 when the record runs past the end of the current window and the file continues.
+    private int scanRecordInWindow() {
+        int limit = window.limit();
+        boolean lastWindow = windowStart + limit >= fileSize;
+        int p = (int) (position - windowStart);
+        int count = 0;
+        while (true) {
+            if (count == fieldStart.length) {
+                fieldStart = Arrays.copyOf(fieldStart, count * 2);
+                fieldEnd = Arrays.copyOf(fieldEnd, count * 2);
+                fieldQuoted = Arrays.copyOf(fieldQuoted, count * 2);
+            }
+            if (p < limit && window.get(p) == '"') {
+                int start = ++p;
+                while (true) {
+                    if (p >= limit) {
+                        if (lastWindow) {
+                            throw parseException("Unterminated quoted field");
+                        }
+                        return -1;
+                    }
+                    if (window.get(p) == '"') {
+                        if (p + 1 < limit && window.get(p + 1) == '"') {
+                            p += 2;
+                            continue;
+                        }
+                        if (p + 1 >= limit && !lastWindow) {
+                            return -1;
+                        }
+                        break;
+                    }
+                    p++;
+                }
+                fieldStart[count] = start;
+                fieldEnd[count] = p++;
+                fieldQuoted[count] = true;
+                if (p < limit && window.get(p) != delimiter && window.get(p) != '\n' && window.get(p) != '\r') {
+                    throw parseException("Unexpected character after quoted field");
+                }
+            } else {
+                int start = p;
+                byte b;
+                while (p < limit && (b = window.get(p)) != delimiter && b != '\n' && b != '\r') {
+                    p++;
+                }
+                fieldStart[count] = start;
+                fieldEnd[count] = p;
+                fieldQuoted[count] = false;
+            }
+            count++;
+
+            if (p >= limit) {
+                if (!lastWindow) {
+                    return -1;
+                }
+                break;
+            }
+            byte b = window.get(p);
+            if (b == delimiter) {
+                p++;
+                continue;
+            }
+            if (b == '\r') {
+                if (p + 1 >= limit && !lastWindow) {
+                    return -1;
+                }
+                p++;
+            }
+            if (p < limit && window.get(p) == '\n') {
+                p++;
+            }
+            break;
+        }
+        position = windowStart + p;
+        return count;
+    }
+
+    private void ensureMapped(long offset) {
+        if (window == null || offset < windowStart || offset >= windowStart + window.limit()) {
+            map(offset);
+        }
+    }
+
+    private void map(long offset) {
+        try {
+            this.window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, fileSize - offset));
+            this.windowStart = offset;
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to map " + resource + " at offset " + offset, e);
+        }
+    }
+
+    private void resolveColumns(int fieldCount) {
+        String[] tokens = LinkedinBatchApplication.tokens;
+        int[] resolved = new int[tokens.length];
+        Arrays.fill(resolved, -1);
+        for (int field = 0; field < fieldCount; field++) {
+            String name = parseString(field).trim();
+            for (int i = 0; i < tokens.length; i++) {
+                if (tokens[i].equalsIgnoreCase(name)) {
+                    resolved[i] = field;
+                }
+            }
+        }
+        for (int i = 0; i < resolved.length; i++) {
+            if (resolved[i] < 0) {
+                throw new ItemStreamException("Column " + tokens[i] + " not found in header of " + resource);
+            }
+        }
+        this.columns = resolved;
+        this.requiredFields = Arrays.stream(resolved).max().getAsInt() + 1;
+    }
+
+    private String parseString(int field) {
+        int length = fieldEnd[field] - fieldStart[field];
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.position(fieldStart[field]);
+        window.get(scratch, 0, length);
+        if (fieldQuoted[field]) {
+            int out = 0;
+            for (int i = 0; i < length; i++) {
+                scratch[out++] = scratch[i];
+                if (scratch[i] == '"') {
+                    i++;
+                }
+            }
+            length = out;
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private long parseLong(int field) {
+        int p = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = p < end && window.get(p) == '-';
+        if (negative) {
+            p++;
+        }
+        if (p == end) {
+            throw parseException("Empty numeric field in column " + field);
+        }
+        long value = 0;
+        for (; p < end; p++) {
+            int digit = window.get(p) - '0';
+            if (digit < 0 || digit > 9) {
+                throw parseException("Invalid numeric field " + parseString(field));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private BigDecimal parseDecimal(int field) {
+        int p = fieldStart[field];
+        int end = fieldEnd[field];
+        if (p == end) {
+            return null;
+        }
+        if (end - p > 18) {
+            return new BigDecimal(parseString(field));
+        }
+        boolean negative = window.get(p) == '-';
+        if (negative || window.get(p) == '+') {
+            p++;
+        }
+        long unscaled = 0;
+        int scale = -1;
+        for (; p < end; p++) {
+            byte b = window.get(p);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                throw parseException("Invalid decimal field " + parseString(field));
+            }
+            unscaled = unscaled * 10 + digit;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    private Date parseDate(int field) {
+        int p = fieldStart[field];
+        if (p == fieldEnd[field]) {
+            return null;
+        }
+        if (fieldEnd[field] - p != 10 || window.get(p + 4) != '-' || window.get(p + 7) != '-') {
+            throw parseException("Invalid date field " + parseString(field) + ", expected yyyy-MM-dd");
+        }
+        int year = digits(p, 4);
+        int month = digits(p + 5, 2);
+        int day = digits(p + 8, 2);
+        int key = (year * 100 + month) * 100 + day;
+        if (key != lastDateKey) {
+            lastDateMillis = LocalDate.of(year, month, day).atStartOfDay(zone).toInstant().toEpochMilli();
+            lastDateKey = key;
+        }
+        return new Date(lastDateMillis);
+    }
+
+    private int digits(int p, int count) {
+        int value = 0;
+        for (int i = p; i < p + count; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw parseException("Invalid digit in date field");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private FlatFileParseException parseException(String message) {
+        return new FlatFileParseException(message + " at line " + lineNumber + " of " + resource, "", (int) lineNumber);
+    }
+}
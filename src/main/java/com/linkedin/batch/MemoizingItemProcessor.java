@@ -0,0 +1,92 @@
+package com.linkedin.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ItemProcessor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+// Remembers what the delegate made of each item of the current chunk, so retries and the
+// rollback rescans of a fault-tolerant step only run the delegate again for items that failed.
+// Results and filtered items (as empty) are kept by item key; exceptions are not kept. A chunk
+// that rolls back may be retried on another thread of a multi-threaded step, so the table is kept
+// on the chunk's ChunkContext, which the step hands on with the chunk's items. beforeChunk binds
+// it to the thread for process(), afterChunkError unbinds it and afterChunk, once the chunk has
+// committed, drops it. Tables stop growing at maxEntries, past which items are simply processed again.
+// As a ChunkListener it registers itself when used as a step's processor; without the chunk
+// callbacks nothing is remembered.
+public class MemoizingItemProcessor<I, O> implements ItemProcessor<I, O>, ChunkListener {
+
+    private static final String RESULTS = "memoizingItemProcessor.results";
+
+    private final ItemProcessor<I, O> delegate;
+
+    private final Function<? super I, ?> key;
+
+    private int maxEntries = 10_000;
+
+    private final ThreadLocal<Map<Object, Optional<O>>> results = new ThreadLocal<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public MemoizingItemProcessor(String name, ItemProcessor<I, O> delegate, Function<? super I, ?> key, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.key = key;
+        this.hits = registry.counter("batch.processor.memoized", "processor", name, "result", "hit");
+        this.misses = registry.counter("batch.processor.memoized", "processor", name, "result", "miss");
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public O process(I item) throws Exception {
+        Object itemKey = key.apply(item);
+        Map<Object, Optional<O>> current = results.get();
+        if (itemKey == null || current == null) {
+            return delegate.process(item);
+        }
+        Optional<O> remembered = current.get(itemKey);
+        if (remembered != null) {
+            hits.increment();
+            return remembered.orElse(null);
+        }
+        misses.increment();
+        O result = delegate.process(item);
+        if (current.size() < maxEntries) {
+            current.put(itemKey, Optional.ofNullable(result));
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void beforeChunk(ChunkContext context) {
+        Map<Object, Optional<O>> current = (Map<Object, Optional<O>>) context.getAttribute(RESULTS);
+        if (current == null) {
+            current = new HashMap<>();
+            context.setAttribute(RESULTS, current);
+        }
+        results.set(current);
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        context.removeAttribute(RESULTS);
+        results.remove();
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        // The table stays with the chunk for its retry.
+        results.remove();
+    }
+}
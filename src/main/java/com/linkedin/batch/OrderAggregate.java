@@ -0,0 +1,60 @@
+package com.linkedin.batch;
+
+import java.math.BigDecimal;
+
+public class OrderAggregate {
+    private String dimension;
+
+    private String value;
+
+    private long count;
+
+    private BigDecimal revenue;
+
+    public OrderAggregate() {
+    }
+
+    public OrderAggregate(String dimension, String value, long count, BigDecimal revenue) {
+        this.dimension = dimension;
+        this.value = value;
+        this.count = count;
+        this.revenue = revenue;
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(String dimension) {
+        this.dimension = dimension;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderAggregate [dimension=" + dimension + ", value=" + value + ", count=" + count + ", revenue=" + revenue + "]";
+    }
+}
@@ -0,0 +1,229 @@
+package com.linkedin.batch;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Predicate;
+
+// A chunk of orders held column by column. Processors narrow the selection vector instead of
+// filtering objects, and TrackedOrders are only built for the rows that survive to the writer.
+public class OrderBatch {
+
+    public static final long NULL_COST = Long.MIN_VALUE;
+
+    public static final int NULL_DATE = Integer.MIN_VALUE;
+
+    private final long[] orderIds;
+
+    private final String[] firstNames;
+
+    private final String[] lastNames;
+
+    private final String[] emails;
+
+    private final long[] costCents;
+
+    private final String[] itemIds;
+
+    private final int[] itemNameCodes;
+
+    private final int[] shipDates;
+
+    private final String[] trackingNumbers;
+
+    private final boolean[] freeShipping;
+
+    private final int[] selection;
+
+    private final ItemNameDictionary itemNames;
+
+    private int size;
+
+    private int selectedCount;
+
+    public OrderBatch(int capacity, ItemNameDictionary itemNames) {
+        this.orderIds = new long[capacity];
+        this.firstNames = new String[capacity];
+        this.lastNames = new String[capacity];
+        this.emails = new String[capacity];
+        this.costCents = new long[capacity];
+        this.itemIds = new String[capacity];
+        this.itemNameCodes = new int[capacity];
+        this.shipDates = new int[capacity];
+        this.trackingNumbers = new String[capacity];
+        this.freeShipping = new boolean[capacity];
+        this.selection = new int[capacity];
+        this.itemNames = itemNames;
+    }
+
+    public int capacity() {
+        return orderIds.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == orderIds.length;
+    }
+
+    public void add(long orderId, String firstName, String lastName, String email, long costCents,
+            String itemId, String itemName, int shipDate) {
+        int row = size++;
+        orderIds[row] = orderId;
+        firstNames[row] = firstName;
+        lastNames[row] = lastName;
+        emails[row] = email;
+        this.costCents[row] = costCents;
+        itemIds[row] = itemId;
+        itemNameCodes[row] = itemNames.code(itemName);
+        shipDates[row] = shipDate;
+        selection[selectedCount++] = row;
+    }
+
+    public int selectedCount() {
+        return selectedCount;
+    }
+
+    public int selected(int index) {
+        return selection[index];
+    }
+
+    // Keeps the selected rows for which the mask is set; mask is indexed by position in the selection.
+    public void retain(boolean[] mask) {
+        int kept = 0;
+        for (int i = 0; i < selectedCount; i++) {
+            if (mask[i]) {
+                selection[kept++] = selection[i];
+            }
+        }
+        selectedCount = kept;
+    }
+
+    public long orderId(int row) {
+        return orderIds[row];
+    }
+
+    public String email(int row) {
+        return emails[row];
+    }
+
+    public long costCents(int row) {
+        return costCents[row];
+    }
+
+    public int shipDate(int row) {
+        return shipDates[row];
+    }
+
+    public void setTrackingNumber(int row, String trackingNumber) {
+        trackingNumbers[row] = trackingNumber;
+    }
+
+    public void setFreeShipping(int row, boolean value) {
+        freeShipping[row] = value;
+    }
+
+    public long lastOrderId() {
+        return orderIds[size - 1];
+    }
+
+    // Clears the mask (indexed by position in the selection) for rows whose property value fails the
+    // check. String columns are tested in place, item names once per dictionary code; only numeric
+    // columns are boxed, and only the rows still set in the mask.
+    public void test(String property, Predicate<Object> check, boolean[] mask) {
+        switch (property) {
+            case "firstName":
+                test(firstNames, check, mask);
+                break;
+            case "lastName":
+                test(lastNames, check, mask);
+                break;
+            case "email":
+                test(emails, check, mask);
+                break;
+            case "itemId":
+                test(itemIds, check, mask);
+                break;
+            case "itemName":
+                testItemNames(check, mask);
+                break;
+            case "orderId":
+                for (int i = 0; i < selectedCount; i++) {
+                    mask[i] = mask[i] && check.test(orderIds[selection[i]]);
+                }
+                break;
+            case "cost":
+                for (int i = 0; i < selectedCount; i++) {
+                    long cents = costCents[selection[i]];
+                    mask[i] = mask[i] && check.test(cents == NULL_COST ? null : BigDecimal.valueOf(cents, 2));
+                }
+                break;
+            case "shipDate":
+                for (int i = 0; i < selectedCount; i++) {
+                    int date = shipDates[selection[i]];
+                    mask[i] = mask[i] && check.test(date == NULL_DATE ? null : LocalDate.ofEpochDay(date));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("No column for property " + property);
+        }
+    }
+
+    private void test(String[] column, Predicate<Object> check, boolean[] mask) {
+        for (int i = 0; i < selectedCount; i++) {
+            mask[i] = mask[i] && check.test(column[selection[i]]);
+        }
+    }
+
+    private void testItemNames(Predicate<Object> check, boolean[] mask) {
+        // Per code: 0 not yet tested, 1 passes, 2 fails. Index 0 is the null name (code -1).
+        byte[] verdicts = new byte[16];
+        for (int i = 0; i < selectedCount; i++) {
+            if (!mask[i]) {
+                continue;
+            }
+            int code = itemNameCodes[selection[i]];
+            if (code + 1 >= verdicts.length) {
+                verdicts = Arrays.copyOf(verdicts, Math.max(verdicts.length * 2, code + 2));
+            }
+            if (verdicts[code + 1] == 0) {
+                verdicts[code + 1] = check.test(itemNames.name(code)) ? (byte) 1 : (byte) 2;
+            }
+            mask[i] = verdicts[code + 1] == 1;
+        }
+    }
+
+    public List<TrackedOrder> toTrackedOrders(ZoneId zone) {
+        List<TrackedOrder> trackedOrders = new ArrayList<>(selectedCount);
+        int lastDate = NULL_DATE;
+        long lastDateMillis = 0;
+        for (int i = 0; i < selectedCount; i++) {
+            int row = selection[i];
+            TrackedOrder trackedOrder = new TrackedOrder();
+            trackedOrder.setOrderId(orderIds[row]);
+            trackedOrder.setFirstName(firstNames[row]);
+            trackedOrder.setLastName(lastNames[row]);
+            trackedOrder.setEmail(emails[row]);
+            trackedOrder.setCost(costCents[row] == NULL_COST ? null : BigDecimal.valueOf(costCents[row], 2));
+            trackedOrder.setItemId(itemIds[row]);
+            trackedOrder.setItemName(itemNames.name(itemNameCodes[row]));
+            if (shipDates[row] != NULL_DATE) {
+                if (shipDates[row] != lastDate) {
+                    lastDate = shipDates[row];
+                    lastDateMillis = LocalDate.ofEpochDay(lastDate).atStartOfDay(zone).toInstant().toEpochMilli();
+                }
+                trackedOrder.setShipDate(new Date(lastDateMillis));
+            }
+            trackedOrder.setTrackingNumber(trackingNumbers[row]);
+            trackedOrder.setFreeShipping(freeShipping[row]);
+            trackedOrders.add(trackedOrder);
+        }
+        return trackedOrders;
+    }
+}
@@ -0,0 +1,61 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// The writer boundary of the columnar pipeline: only surviving rows become TrackedOrders.
+public class OrderBatchItemWriter implements ItemStreamWriter<OrderBatch> {
+
+    private final ItemWriter<TrackedOrder> delegate;
+
+    private ZoneId zone = ZoneId.systemDefault();
+
+    public OrderBatchItemWriter(ItemWriter<TrackedOrder> delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setZone(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    @Override
+    public void write(List<? extends OrderBatch> batches) throws Exception {
+        if (batches.size() == 1) {
+            delegate.write(batches.get(0).toTrackedOrders(zone));
+            return;
+        }
+        List<TrackedOrder> trackedOrders = new ArrayList<>();
+        for (OrderBatch batch : batches) {
+            trackedOrders.addAll(batch.toTrackedOrders(zone));
+        }
+        delegate.write(trackedOrders);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).open(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).close();
+        }
+    }
+}
@@ -4,18 +4,53 @@ import org.springframework.batch.item.file.mapping.FieldSetMapper;
 import org.springframework.batch.item.file.transform.FieldSet;
 import org.springframework.validation.BindException;
 
+import java.util.Arrays;
+
 public class OrderFieldSetMapper implements FieldSetMapper<Order> {
+
+    private final int orderId;
+    private final int firstName;
+    private final int lastName;
+    private final int email;
+    private final int cost;
+    private final int itemId;
+    private final int itemName;
+    private final int shipDate;
+
+    public OrderFieldSetMapper() {
+        this(LinkedinBatchApplication.tokens);
+    }
+
+    public OrderFieldSetMapper(String[] names) {
+        this.orderId = indexOf(names, "order_id");
+        this.firstName = indexOf(names, "first_name");
+        this.lastName = indexOf(names, "last_name");
+        this.email = indexOf(names, "email");
+        this.cost = indexOf(names, "cost");
+        this.itemId = indexOf(names, "item_id");
+        this.itemName = indexOf(names, "item_name");
+        this.shipDate = indexOf(names, "ship_date");
+    }
+
     @Override
     public Order mapFieldSet(FieldSet fieldSet) throws BindException {
         Order order = new Order();
-        order.setOrderId(fieldSet.readLong("order_id"));
-        order.setCost(fieldSet.readBigDecimal("cost"));
-        order.setEmail(fieldSet.readString("email"));
-        order.setFirstName(fieldSet.readString("first_name"));
-        order.setLastName(fieldSet.readString("last_name"));
-        order.setItemId(fieldSet.readString("item_id"));
-        order.setItemName(fieldSet.readString("item_name"));
-        order.setShipDate(fieldSet.readDate("ship_date"));
+        order.setOrderId(fieldSet.readLong(orderId));
+        order.setCost(fieldSet.readBigDecimal(cost));
+        order.setEmail(fieldSet.readString(email));
+        order.setFirstName(fieldSet.readString(firstName));
+        order.setLastName(fieldSet.readString(lastName));
+        order.setItemId(fieldSet.readString(itemId));
+        order.setItemName(fieldSet.readString(itemName));
+        order.setShipDate(fieldSet.readDate(shipDate));
         return order;
     }
+
+    private static int indexOf(String[] names, String name) {
+        int index = Arrays.asList(names).indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Column " + name + " not found in " + Arrays.toString(names));
+        }
+        return index;
+    }
 }
@@ -0,0 +1,47 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+public class OrderIdRangePartitioner implements Partitioner {
+
+    public static final String MIN_VALUE = "minValue";
+    public static final String MAX_VALUE = "maxValue";
+
+    private static final String MIN_MAX_ORDER_ID_SQL = "select min(order_id), max(order_id) from SHIPPED_ORDER";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderIdRangePartitioner(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        long[] bounds = this.jdbcTemplate.queryForObject(MIN_MAX_ORDER_ID_SQL,
+                (resultSet, i) -> resultSet.getObject(1) == null ? null
+                        : new long[]{resultSet.getLong(1), resultSet.getLong(2)});
+        if (bounds == null) {
+            return partitions;
+        }
+
+        long min = bounds[0];
+        long max = bounds[1];
+        long rangeSize = Math.max(1, (max - min) / Math.max(1, gridSize) + 1);
+
+        int number = 0;
+        for (long start = min; start <= max; start += rangeSize) {
+            ExecutionContext context = new ExecutionContext();
+            context.putLong(MIN_VALUE, start);
+            context.putLong(MAX_VALUE, Math.min(max, start + rangeSize - 1));
+            partitions.put("partition" + number++, context);
+        }
+        return partitions;
+    }
+}
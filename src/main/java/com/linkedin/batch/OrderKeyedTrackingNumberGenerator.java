@@ -0,0 +1,38 @@
+package com.linkedin.batch;
+
+import java.util.UUID;
+
+public class OrderKeyedTrackingNumberGenerator implements TrackingNumberGenerator {
+
+    private static final long MAX_NAMESPACE = (1L << 48) - 1;
+
+    private final long namespace;
+
+    public OrderKeyedTrackingNumberGenerator(long namespace) {
+        if (namespace < 0 || namespace > MAX_NAMESPACE) {
+            throw new IllegalArgumentException("Namespace must fit in 48 bits: " + namespace);
+        }
+        this.namespace = namespace;
+    }
+
+    @Override
+    public String generate(Order order) {
+        return generate(order.getOrderId());
+    }
+
+    @Override
+    public String generate(long orderId) {
+        // Same order id, same number: retries are stable and nothing is shared between threads or JVMs.
+        long mixed = mix(orderId);
+        long mostSignificantBits = (namespace << 16) | 0x8000L | (mixed >>> 52);
+        long leastSignificantBits = 0x8000000000000000L | (mixed & 0x000FFFFFFFFFFFFFL);
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
+
+    // SplitMix64 finalizer: every step is invertible, so distinct order ids never collide.
+    static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,181 @@
+package com.linkedin.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class OrderPipelineMetricsListener implements ItemReadListener<Order>, ItemProcessListener<Order, TrackedOrder>,
+        ItemWriteListener<TrackedOrder>, ChunkListener, RetryListener, SkipListener<Order, TrackedOrder> {
+
+    private static final String RETRYING = "batch.order.retrying";
+
+    private final ThreadLocal<PhaseTimes> phaseTimes = ThreadLocal.withInitial(PhaseTimes::new);
+
+    private final Timer readTimer;
+
+    private final Timer processTimer;
+
+    private final Timer writeTimer;
+
+    private final Timer commitTimer;
+
+    private final Timer chunkTimer;
+
+    private final Counter retryCounter;
+
+    private final Counter readSkipCounter;
+
+    private final Counter processSkipCounter;
+
+    private final Counter writeSkipCounter;
+
+    private final Counter errorCounter;
+
+    public OrderPipelineMetricsListener(String stepName, MeterRegistry registry) {
+        this.readTimer = timer("batch.order.read", stepName, registry);
+        this.processTimer = timer("batch.order.process", stepName, registry);
+        this.writeTimer = timer("batch.order.write", stepName, registry);
+        this.commitTimer = timer("batch.order.commit", stepName, registry);
+        this.chunkTimer = timer("batch.order.chunk", stepName, registry);
+        this.retryCounter = registry.counter("batch.order.retries", "step", stepName);
+        this.readSkipCounter = registry.counter("batch.order.skips", "step", stepName, "phase", "read");
+        this.processSkipCounter = registry.counter("batch.order.skips", "step", stepName, "phase", "process");
+        this.writeSkipCounter = registry.counter("batch.order.skips", "step", stepName, "phase", "write");
+        this.errorCounter = registry.counter("batch.order.chunk.errors", "step", stepName);
+    }
+
+    private static Timer timer(String name, String stepName, MeterRegistry registry) {
+        return Timer.builder(name)
+                .tag("step", stepName)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext chunkContext) {
+        phaseTimes.get().chunkStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext chunkContext) {
+        PhaseTimes times = phaseTimes.get();
+        long now = System.nanoTime();
+        chunkTimer.record(now - times.chunkStart, TimeUnit.NANOSECONDS);
+        if (times.writeEnd != 0) {
+            // afterChunk runs once the chunk transaction has committed.
+            commitTimer.record(now - times.writeEnd, TimeUnit.NANOSECONDS);
+            times.writeEnd = 0;
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext chunkContext) {
+        errorCounter.increment();
+        phaseTimes.get().writeEnd = 0;
+    }
+
+    @Override
+    public void beforeRead() {
+        phaseTimes.get().readStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterRead(Order order) {
+        readTimer.record(System.nanoTime() - phaseTimes.get().readStart, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onReadError(Exception e) {
+    }
+
+    @Override
+    public void beforeProcess(Order order) {
+        phaseTimes.get().processStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterProcess(Order order, TrackedOrder trackedOrder) {
+        processTimer.record(System.nanoTime() - phaseTimes.get().processStart, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onProcessError(Order order, Exception e) {
+    }
+
+    @Override
+    public void beforeWrite(List<? extends TrackedOrder> items) {
+        phaseTimes.get().writeStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterWrite(List<? extends TrackedOrder> items) {
+        PhaseTimes times = phaseTimes.get();
+        times.writeEnd = System.nanoTime();
+        writeTimer.record(times.writeEnd - times.writeStart, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<? extends TrackedOrder> items) {
+    }
+
+    @Override
+    public <T, E extends Throwable> boolean open(RetryContext retryContext, RetryCallback<T, E> retryCallback) {
+        // The step's retry is stateful: every attempt after a rollback opens the cached context again,
+        // so a non-zero count here is a retry, unless it turns out to be exhausted and only recovers.
+        if (retryContext.getRetryCount() > 0) {
+            retryContext.setAttribute(RETRYING, true);
+        }
+        return true;
+    }
+
+    @Override
+    public <T, E extends Throwable> void close(RetryContext retryContext, RetryCallback<T, E> retryCallback, Throwable throwable) {
+        if (retryContext.removeAttribute(RETRYING) != null && !retryContext.hasAttribute(RetryContext.EXHAUSTED)) {
+            retryCounter.increment();
+        }
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext retryContext, RetryCallback<T, E> retryCallback, Throwable throwable) {
+    }
+
+    @Override
+    public void onSkipInRead(Throwable throwable) {
+        readSkipCounter.increment();
+    }
+
+    @Override
+    public void onSkipInWrite(TrackedOrder trackedOrder, Throwable throwable) {
+        writeSkipCounter.increment();
+    }
+
+    @Override
+    public void onSkipInProcess(Order order, Throwable throwable) {
+        processSkipCounter.increment();
+    }
+
+    private static class PhaseTimes {
+
+        private long chunkStart;
+
+        private long readStart;
+
+        private long processStart;
+
+        private long writeStart;
+
+        private long writeEnd;
+    }
+}
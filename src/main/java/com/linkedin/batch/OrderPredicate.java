@@ -0,0 +1,167 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.file.transform.FieldSet;
+
+import javax.validation.constraints.Pattern;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// A filter a processor applies, in a form readers can push down. Predicates are conservative:
+// they only reject rows the processor would certainly filter, so the processor stays the authority.
+public final class OrderPredicate {
+
+    private static final String REGEX_METACHARACTERS = ".[]{}()*+?^$|\\";
+
+    // Text the server converts to exactly the same DECIMAL(65, 30); anything else is kept for the mapper.
+    private static final String DECIMAL_TEXT = "^ *[-+]?([0-9]{1,35}([.][0-9]{0,30})?|[.][0-9]{1,30}) *$";
+
+    private final String column;
+
+    private final Function<String, String> condition;
+
+    private final Object value;
+
+    private final Predicate<String> test;
+
+    private OrderPredicate(String column, Function<String, String> condition, Object value, Predicate<String> test) {
+        this.column = column;
+        this.condition = condition;
+        this.value = value;
+        this.test = test;
+    }
+
+    public static OrderPredicate endsWith(String column, String suffix) {
+        return new OrderPredicate(column, parameter -> "(" + column + " is null or " + column + " like :" + parameter + ")",
+                "%" + escapeLike(suffix), raw -> raw == null || raw.endsWith(suffix));
+    }
+
+    public static OrderPredicate startsWith(String column, String prefix) {
+        return new OrderPredicate(column, parameter -> "(" + column + " is null or " + column + " like :" + parameter + ")",
+                escapeLike(prefix) + "%", raw -> raw == null || raw.startsWith(prefix));
+    }
+
+    // Text columns are compared as decimals only when they hold one: MySQL would otherwise coerce a
+    // malformed value to 0 (or compare as a double) and drop rows the processor gets to see.
+    public static OrderPredicate greaterThan(String column, BigDecimal minimum) {
+        return new OrderPredicate(column, parameter -> "(" + column + " is null or " + column + " not regexp '" + DECIMAL_TEXT
+                + "' or cast(" + column + " as decimal(65, 30)) > :" + parameter + ")",
+                minimum, raw -> {
+                    if (raw == null || raw.trim().isEmpty()) {
+                        return true;
+                    }
+                    try {
+                        return new BigDecimal(raw.trim()).compareTo(minimum) > 0;
+                    } catch (NumberFormatException e) {
+                        // Leave malformed values to the mapper to report.
+                        return true;
+                    }
+                });
+    }
+
+    // Derives predicates from @Pattern constraints of the form ".*literal" or "literal.*"; anything else stays processor-only.
+    public static List<OrderPredicate> fromConstraints(Class<?> type) {
+        List<OrderPredicate> predicates = new ArrayList<>();
+        for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                Pattern pattern = field.getAnnotation(Pattern.class);
+                if (pattern == null || pattern.flags().length > 0) {
+                    continue;
+                }
+                String column = columnFor(field.getName());
+                String regexp = pattern.regexp();
+                if (column == null) {
+                    continue;
+                }
+                if (regexp.startsWith(".*")) {
+                    String literal = unescapeLiteral(regexp.substring(2));
+                    if (literal != null) {
+                        predicates.add(endsWith(column, literal));
+                    }
+                } else if (regexp.endsWith(".*") && !regexp.endsWith("\\.*")) {
+                    String literal = unescapeLiteral(regexp.substring(0, regexp.length() - 2));
+                    if (literal != null) {
+                        predicates.add(startsWith(column, literal));
+                    }
+                }
+            }
+        }
+        return predicates;
+    }
+
+    public static String whereClause(List<OrderPredicate> predicates) {
+        StringBuilder clause = new StringBuilder();
+        for (int i = 0; i < predicates.size(); i++) {
+            if (i > 0) {
+                clause.append(" and ");
+            }
+            clause.append(predicates.get(i).condition.apply(parameterName(i)));
+        }
+        return clause.toString();
+    }
+
+    public static Map<String, Object> parameterValues(List<OrderPredicate> predicates) {
+        if (predicates.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < predicates.size(); i++) {
+            values.put(parameterName(i), predicates.get(i).value);
+        }
+        return values;
+    }
+
+    private static String parameterName(int index) {
+        return "pushdown" + index;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean test(String rawValue) {
+        return test.test(rawValue);
+    }
+
+    public boolean test(FieldSet fieldSet) {
+        return test.test(fieldSet.readString(column));
+    }
+
+    private static String columnFor(String property) {
+        String[] names = LinkedinBatchApplication.names;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) {
+                return LinkedinBatchApplication.tokens[i];
+            }
+        }
+        return null;
+    }
+
+    static String unescapeLiteral(String regexp) {
+        StringBuilder literal = new StringBuilder(regexp.length());
+        for (int i = 0; i < regexp.length(); i++) {
+            char c = regexp.charAt(i);
+            if (c == '\\') {
+                if (++i == regexp.length() || REGEX_METACHARACTERS.indexOf(regexp.charAt(i)) < 0) {
+                    return null;
+                }
+                literal.append(regexp.charAt(i));
+            } else if (REGEX_METACHARACTERS.indexOf(c) >= 0) {
+                return null;
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.toString();
+    }
+
+    private static String escapeLike(String literal) {
+        return literal.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,8 @@
+package com.linkedin.batch;
+
+import java.util.List;
+
+public interface OrderPredicateProvider {
+
+    List<OrderPredicate> getPredicates();
+}
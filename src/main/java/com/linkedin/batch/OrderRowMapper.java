@@ -8,17 +8,50 @@ import java.sql.SQLException;
 
 public class OrderRowMapper implements RowMapper<Order> {
 
+    private volatile ColumnIndexes columnIndexes;
+
     @Override
     public Order mapRow(ResultSet resultSet, int i) throws SQLException {
+        int[] columns = columnsFor(resultSet);
         Order order = new Order();
-        order.setOrderId(resultSet.getLong("order_id"));
-        order.setCost(resultSet.getBigDecimal("cost"));
-        order.setEmail(resultSet.getString("email"));
-        order.setFirstName(resultSet.getString("first_name"));
-        order.setLastName(resultSet.getString("last_name"));
-        order.setItemId(resultSet.getString("item_id"));
-        order.setItemName(resultSet.getString("item_name"));
-        order.setShipDate(resultSet.getDate("ship_date"));
+        order.setOrderId(resultSet.getLong(columns[0]));
+        order.setCost(resultSet.getBigDecimal(columns[1]));
+        order.setEmail(resultSet.getString(columns[2]));
+        order.setFirstName(resultSet.getString(columns[3]));
+        order.setLastName(resultSet.getString(columns[4]));
+        order.setItemId(resultSet.getString(columns[5]));
+        order.setItemName(resultSet.getString(columns[6]));
+        order.setShipDate(resultSet.getDate(columns[7]));
         return order;
     }
+
+    // Column labels are resolved once per ResultSet instead of once per row.
+    private int[] columnsFor(ResultSet resultSet) throws SQLException {
+        ColumnIndexes current = this.columnIndexes;
+        if (current == null || current.resultSet != resultSet) {
+            current = new ColumnIndexes(resultSet, new int[]{
+                    resultSet.findColumn("order_id"),
+                    resultSet.findColumn("cost"),
+                    resultSet.findColumn("email"),
+                    resultSet.findColumn("first_name"),
+                    resultSet.findColumn("last_name"),
+                    resultSet.findColumn("item_id"),
+                    resultSet.findColumn("item_name"),
+                    resultSet.findColumn("ship_date")});
+            this.columnIndexes = current;
+        }
+        return current.columns;
+    }
+
+    private static class ColumnIndexes {
+
+        private final ResultSet resultSet;
+
+        private final int[] columns;
+
+        private ColumnIndexes(ResultSet resultSet, int[] columns) {
+            this.resultSet = resultSet;
+            this.columns = columns;
+        }
+    }
 }
@@ -0,0 +1,28 @@
+package com.linkedin.batch;
+
+import java.util.List;
+
+// Hands partition StepExecutions from a manager to worker JVMs; step state lives in the job repository,
+// claims and execution heartbeats in the channel.
+public interface PartitionChannel {
+
+    void send(PartitionRequest request);
+
+    // Claims the next pending request for this worker, or returns null when there is none.
+    PartitionRequest claim(String workerId);
+
+    void heartbeat(PartitionRequest request, String workerId);
+
+    void acknowledge(PartitionRequest request, String workerId);
+
+    // Records that this worker is still running the request's step, whatever became of its claim.
+    void executionHeartbeat(PartitionRequest request, String workerId);
+
+    void executionFinished(PartitionRequest request, String workerId);
+
+    // The latest execution heartbeat for the request's step from any generation, or 0 when none is running.
+    long lastExecutionHeartbeat(PartitionRequest request);
+
+    // Returns claims whose worker has stopped sending heartbeats to the pending queue.
+    List<PartitionRequest> reclaimExpired(long heartbeatTimeoutMillis);
+}
@@ -0,0 +1,50 @@
+package com.linkedin.batch;
+
+public class PartitionRequest {
+
+    private final long jobExecutionId;
+
+    private final long stepExecutionId;
+
+    private final String stepName;
+
+    // Bumped every time the request is reclaimed from a worker, so a claim is held per generation.
+    private final int generation;
+
+    public PartitionRequest(long jobExecutionId, long stepExecutionId, String stepName) {
+        this(jobExecutionId, stepExecutionId, stepName, 0);
+    }
+
+    public PartitionRequest(long jobExecutionId, long stepExecutionId, String stepName, int generation) {
+        this.jobExecutionId = jobExecutionId;
+        this.stepExecutionId = stepExecutionId;
+        this.stepName = stepName;
+        this.generation = generation;
+    }
+
+    public long getJobExecutionId() {
+        return jobExecutionId;
+    }
+
+    public long getStepExecutionId() {
+        return stepExecutionId;
+    }
+
+    public String getStepName() {
+        return stepName;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public PartitionRequest nextGeneration() {
+        return new PartitionRequest(jobExecutionId, stepExecutionId, stepName, generation + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionRequest [jobExecutionId=" + jobExecutionId + ", stepExecutionId=" + stepExecutionId + ", stepName=" + stepName
+                + ", generation=" + generation + "]";
+    }
+}
@@ -0,0 +1,65 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.mapping.FieldSetMapper;
+import org.springframework.batch.item.file.transform.FieldSet;
+import org.springframework.batch.item.file.transform.LineTokenizer;
+
+import java.util.Collections;
+import java.util.List;
+
+public class PredicateFilteringFlatFileItemReader extends FlatFileItemReader<Order> {
+
+    private static final Order REJECTED = new Order();
+
+    private LineTokenizer lineTokenizer;
+
+    private FieldSetMapper<Order> fieldSetMapper;
+
+    private List<OrderPredicate> predicates = Collections.emptyList();
+
+    public PredicateFilteringFlatFileItemReader() {
+        setLineMapper(this::mapLine);
+    }
+
+    public void setLineTokenizer(LineTokenizer lineTokenizer) {
+        this.lineTokenizer = lineTokenizer;
+    }
+
+    public void setFieldSetMapper(FieldSetMapper<Order> fieldSetMapper) {
+        this.fieldSetMapper = fieldSetMapper;
+    }
+
+    public void setPredicates(List<OrderPredicate> predicates) {
+        this.predicates = predicates;
+    }
+
+    private Order mapLine(String line, int lineNumber) throws Exception {
+        FieldSet fieldSet = lineTokenizer.tokenize(line);
+        for (OrderPredicate predicate : predicates) {
+            if (!predicate.test(fieldSet)) {
+                return REJECTED;
+            }
+        }
+        return fieldSetMapper.mapFieldSet(fieldSet);
+    }
+
+    @Override
+    protected Order doRead() throws Exception {
+        Order order;
+        do {
+            order = super.doRead();
+        } while (order == REJECTED);
+        return order;
+    }
+
+    // The item count saved for restart counts accepted items, not lines, so replay through the filter.
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        for (int i = 0; i < itemIndex; i++) {
+            if (doRead() == null) {
+                return;
+            }
+        }
+    }
+}
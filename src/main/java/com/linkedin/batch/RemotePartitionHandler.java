@@ -0,0 +1,89 @@
+package com.linkedin.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.partition.support.AbstractPartitionHandler;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Manager side of remote partitioning: sends each partition StepExecution to the channel and
+// aggregates by polling the shared job repository, so no replies travel back over the transport.
+// Claims whose worker stops sending heartbeats go back to the queue for another worker.
+public class RemotePartitionHandler extends AbstractPartitionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemotePartitionHandler.class);
+
+    private final String stepName;
+
+    private final PartitionChannel channel;
+
+    private final JobExplorer jobExplorer;
+
+    private long pollIntervalMillis = 1000;
+
+    private long heartbeatTimeoutMillis = 30000;
+
+    private long timeoutMillis = -1;
+
+    public RemotePartitionHandler(String stepName, PartitionChannel channel, JobExplorer jobExplorer) {
+        this.stepName = stepName;
+        this.channel = channel;
+        this.jobExplorer = jobExplorer;
+    }
+
+    public void setPollInterval(long interval, TimeUnit unit) {
+        this.pollIntervalMillis = unit.toMillis(interval);
+    }
+
+    public void setHeartbeatTimeout(long timeout, TimeUnit unit) {
+        this.heartbeatTimeoutMillis = unit.toMillis(timeout);
+    }
+
+    // A negative timeout waits for as long as the partitions take.
+    public void setTimeout(long timeout, TimeUnit unit) {
+        this.timeoutMillis = timeout < 0 ? -1 : unit.toMillis(timeout);
+    }
+
+    @Override
+    protected Set<StepExecution> doHandle(StepExecution managerStepExecution, Set<StepExecution> partitionStepExecutions)
+            throws Exception {
+        for (StepExecution partition : partitionStepExecutions) {
+            channel.send(new PartitionRequest(partition.getJobExecutionId(), partition.getId(), stepName));
+        }
+
+        Map<Long, StepExecution> running = new HashMap<>();
+        for (StepExecution partition : partitionStepExecutions) {
+            running.put(partition.getId(), partition);
+        }
+        Set<StepExecution> finished = new HashSet<>();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            for (PartitionRequest request : channel.reclaimExpired(heartbeatTimeoutMillis)) {
+                logger.warn("Worker stopped sending heartbeats; requeued {}", request);
+            }
+            running.values().removeIf(partition -> {
+                StepExecution current = jobExplorer.getStepExecution(partition.getJobExecutionId(), partition.getId());
+                if (current != null && !current.getStatus().isRunning()) {
+                    finished.add(current);
+                    return true;
+                }
+                return false;
+            });
+            if (running.isEmpty()) {
+                return finished;
+            }
+            if (timeoutMillis >= 0 && System.currentTimeMillis() > deadline) {
+                throw new TimeoutException("Timed out waiting for " + running.size() + " of "
+                        + partitionStepExecutions.size() + " partitions of " + managerStepExecution.getStepName());
+            }
+            Thread.sleep(pollIntervalMillis);
+        }
+    }
+}
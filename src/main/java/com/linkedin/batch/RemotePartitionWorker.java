@@ -0,0 +1,214 @@
+package com.linkedin.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInterruptedException;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Worker side of remote partitioning: claims partition StepExecutions from the channel and runs them
+// with the local Step bean of the same name. Progress and the final status go to the shared job
+// repository, which is where the manager looks for them. A worker whose heartbeat fails has lost its
+// claim, or is about to, so it stops the step at the next chunk boundary. Independently of the claim
+// and of the repository, a worker keeps an execution heartbeat in the channel for as long as the step
+// actually runs, and a reclaimed request is only run once that has gone quiet for the heartbeat
+// timeout, so the worker that lost it has stopped or died. Heartbeat times come from the workers'
+// clocks, so keep the timeout well above their skew. The repository's version check on StepExecution
+// fences the rest.
+public class RemotePartitionWorker implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemotePartitionWorker.class);
+
+    private final PartitionChannel channel;
+
+    private final JobExplorer jobExplorer;
+
+    private final JobRepository jobRepository;
+
+    private final BeanFactory beanFactory;
+
+    private final String workerId = ManagementFactory.getRuntimeMXBean().getName().replaceAll("[^A-Za-z0-9_-]", "_");
+
+    private long pollIntervalMillis = 1000;
+
+    private long heartbeatIntervalMillis = 10000;
+
+    private long heartbeatTimeoutMillis = 30000;
+
+    private long idleTimeoutMillis = -1;
+
+    public RemotePartitionWorker(PartitionChannel channel, JobExplorer jobExplorer, JobRepository jobRepository,
+            BeanFactory beanFactory) {
+        this.channel = channel;
+        this.jobExplorer = jobExplorer;
+        this.jobRepository = jobRepository;
+        this.beanFactory = beanFactory;
+    }
+
+    public void setPollInterval(long interval, TimeUnit unit) {
+        this.pollIntervalMillis = unit.toMillis(interval);
+    }
+
+    public void setHeartbeatInterval(long interval, TimeUnit unit) {
+        this.heartbeatIntervalMillis = unit.toMillis(interval);
+    }
+
+    // The manager's heartbeat timeout, after which it reclaims a request.
+    public void setHeartbeatTimeout(long timeout, TimeUnit unit) {
+        this.heartbeatTimeoutMillis = unit.toMillis(timeout);
+    }
+
+    // Stops the worker after this long without work; a negative timeout keeps it polling forever.
+    public void setIdleTimeout(long timeout, TimeUnit unit) {
+        this.idleTimeoutMillis = timeout < 0 ? -1 : unit.toMillis(timeout);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "partition-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Partition worker {} started", workerId);
+        try {
+            long idleSince = System.currentTimeMillis();
+            while (!Thread.currentThread().isInterrupted()) {
+                PartitionRequest request = channel.claim(workerId);
+                if (request == null) {
+                    if (idleTimeoutMillis >= 0 && System.currentTimeMillis() - idleSince > idleTimeoutMillis) {
+                        break;
+                    }
+                    Thread.sleep(pollIntervalMillis);
+                    continue;
+                }
+                Claim claim = new Claim(request);
+                ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> heartbeat(claim),
+                        heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+                try {
+                    execute(claim);
+                } finally {
+                    heartbeat.cancel(false);
+                }
+                channel.acknowledge(request, workerId);
+                idleSince = System.currentTimeMillis();
+            }
+        } finally {
+            heartbeats.shutdownNow();
+            logger.info("Partition worker {} stopped", workerId);
+        }
+    }
+
+    // Runs on the heartbeat thread; an exception would silently cancel the schedule, so none escapes.
+    private void heartbeat(Claim claim) {
+        if (claim.executing) {
+            try {
+                channel.executionHeartbeat(claim.request, workerId);
+            } catch (RuntimeException e) {
+                logger.warn("Cannot record the execution heartbeat of {}", claim.request, e);
+            }
+        }
+        if (claim.lost) {
+            return;
+        }
+        try {
+            channel.heartbeat(claim.request, workerId);
+        } catch (RuntimeException e) {
+            logger.warn("Lost the claim on {}; stopping the partition", claim.request, e);
+            claim.lost = true;
+            StepExecution stepExecution = claim.stepExecution;
+            if (stepExecution != null) {
+                stepExecution.setTerminateOnly();
+            }
+        }
+    }
+
+    private void execute(Claim claim) throws InterruptedException {
+        PartitionRequest request = claim.request;
+        StepExecution stepExecution = request.getGeneration() > 0
+                ? awaitQuiet(request)
+                : jobExplorer.getStepExecution(request.getJobExecutionId(), request.getStepExecutionId());
+        if (stepExecution == null) {
+            logger.warn("Dropping {}: no such step execution", request);
+            return;
+        }
+        claim.stepExecution = stepExecution;
+        if (claim.lost) {
+            logger.warn("Dropping {}: lost the claim before it started", request);
+            return;
+        }
+        JobExecution jobExecution = stepExecution.getJobExecution();
+        if (!stepExecution.getStatus().isRunning() || !jobExecution.isRunning()) {
+            // Already finished, or left over from a job execution that has since ended.
+            logger.warn("Dropping {}: step is {} and job is {}", request, stepExecution.getStatus(), jobExecution.getStatus());
+            return;
+        }
+        // Published before the step starts, and kept up until it returns even if the claim is lost.
+        channel.executionHeartbeat(request, workerId);
+        claim.executing = true;
+        try {
+            Step step = beanFactory.getBean(request.getStepName(), Step.class);
+            step.execute(stepExecution);
+        } catch (JobInterruptedException e) {
+            stepExecution.setStatus(BatchStatus.STOPPED);
+        } catch (Throwable e) {
+            stepExecution.addFailureException(e);
+            stepExecution.setStatus(BatchStatus.FAILED);
+            // The step normally records its own outcome; make sure the manager is not left polling a running step.
+            try {
+                jobRepository.update(stepExecution);
+            } catch (OptimisticLockingFailureException lockingFailure) {
+                logger.warn("Partition {} already recorded its outcome", stepExecution.getStepName(), lockingFailure);
+            }
+        } finally {
+            claim.executing = false;
+            channel.executionFinished(request, workerId);
+        }
+        logger.info("Partition {} finished with {}", stepExecution.getStepName(), stepExecution.getStatus());
+    }
+
+    // Waits until the execution has finished or gone without execution heartbeats for the heartbeat timeout.
+    private StepExecution awaitQuiet(PartitionRequest request) throws InterruptedException {
+        while (true) {
+            StepExecution current = jobExplorer.getStepExecution(request.getJobExecutionId(), request.getStepExecutionId());
+            if (current == null || !current.getStatus().isRunning()) {
+                return current;
+            }
+            long quiet = System.currentTimeMillis() - channel.lastExecutionHeartbeat(request);
+            if (quiet >= heartbeatTimeoutMillis) {
+                return current;
+            }
+            logger.info("Waiting for the previous claimant of {} to stop", request);
+            Thread.sleep(Math.min(pollIntervalMillis, heartbeatTimeoutMillis - quiet));
+        }
+    }
+
+    private static class Claim {
+
+        private final PartitionRequest request;
+
+        private volatile StepExecution stepExecution;
+
+        private volatile boolean lost;
+
+        private volatile boolean executing;
+
+        private Claim(PartitionRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+
+// Sums an amount and counts items per dimension value (say, per itemName and per shipDate) in a hash
+// table bounded by a heap budget. Once a chunk leaves the table over budget, the table is spilled to
+// disk as a run sorted by key at that checkpoint; runs of similar size are merged as they pile up, so
+// there are only ever a few runs per size tier. The checkpoint lists the runs, which AggregateMergeTasklet
+// k-way merges once the step is done; the rest of the table is spilled when the step completes.
+// What the table holds is checkpointed by replay: with setReplayFrom, the reader's checkpoint is held
+// at the last spill, so a restart reads those items again; without it, every checkpoint has to spill.
+// Runs spilled after the last checkpoint are discarded on restart. Runs go to
+// spillDirectory/<job instance id>/<writer name>/, which the merge step deletes when it completes.
+// Meant for single-threaded steps: a checkpoint has to cover exactly the chunks committed before it.
+// As a StepExecutionListener it registers itself when used as a step's writer.
+public class SpillingAggregationItemWriter<T> extends ItemStreamSupport implements ItemStreamWriter<T>, StepExecutionListener {
+
+    private static final String RUNS = "runs";
+
+    private static final String NEXT_RUN = "nextRun";
+
+    // Rough heap cost of one table entry beyond its key: map node, key and accumulator headers, BigDecimal.
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final Function<? super T, BigDecimal> amount;
+
+    private Map<String, Function<? super T, ?>> dimensions = new LinkedHashMap<>();
+
+    private Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+
+    private long heapBudgetBytes = 64L * 1024 * 1024;
+
+    private int mergeFactor = 16;
+
+    private String name = getClass().getSimpleName();
+
+    private ItemStream replayStream;
+
+    // The replay stream's state as of the last spill, put back over its current state at every checkpoint.
+    private ExecutionContext replayCheckpoint;
+
+    private Path runDirectory;
+
+    private final Map<String, Accumulator> table = new HashMap<>();
+
+    private long tableBytes;
+
+    private final List<Run> runs = new ArrayList<>();
+
+    // Runs merged away since the last checkpoint; the last committed checkpoint may still list them.
+    private List<Path> obsoleteRuns = new ArrayList<>();
+
+    // Runs merged away before the last checkpoint, which no longer lists them once it commits.
+    private List<Path> retiredRuns = new ArrayList<>();
+
+    private long nextRun;
+
+    public SpillingAggregationItemWriter(Function<? super T, BigDecimal> amount) {
+        this.amount = amount;
+    }
+
+    // Dimension name to the value an item is grouped by; a null value is grouped on its own.
+    public void setDimensions(Map<String, Function<? super T, ?>> dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    public void setSpillDirectory(Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    public void setHeapBudgetBytes(long heapBudgetBytes) {
+        this.heapBudgetBytes = heapBudgetBytes;
+    }
+
+    public void setMergeFactor(int mergeFactor) {
+        this.mergeFactor = mergeFactor;
+    }
+
+    // The stream the written items come from, typically the step's reader. It has to be registered with
+    // the step ahead of this writer, as a step's reader is, so its checkpoint can be replaced here.
+    public void setReplayFrom(ItemStream replayStream) {
+        this.replayStream = replayStream;
+    }
+
+    @Override
+    public void setName(String name) {
+        super.setName(name);
+        this.name = name;
+    }
+
+    // The ExecutionContext key holding the runs, for promotion to the job and AggregateMergeTasklet.
+    public String getRunsKey() {
+        return getExecutionContextKey(RUNS);
+    }
+
+    @Override
+    public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+        table.clear();
+        tableBytes = 0;
+        runs.clear();
+        obsoleteRuns.clear();
+        retiredRuns.clear();
+        nextRun = executionContext.getLong(getExecutionContextKey(NEXT_RUN), 0);
+        for (String run : executionContext.getString(getRunsKey(), "").split(",")) {
+            if (!run.isEmpty()) {
+                int colon = run.indexOf(':');
+                runs.add(new Run(Paths.get(run.substring(colon + 1)), Integer.parseInt(run.substring(0, colon))));
+            }
+        }
+        StepContext context = StepSynchronizationManager.getContext();
+        runDirectory = context == null ? spillDirectory.resolve(name)
+                : spillDirectory.resolve(String.valueOf(context.getStepExecution().getJobExecution().getJobId())).resolve(name);
+        replayCheckpoint = null;
+        if (replayStream != null) {
+            // Opened ahead of this writer, so this is where the table starts: the start, or the last spill.
+            replayCheckpoint = new ExecutionContext();
+            replayStream.update(replayCheckpoint);
+        }
+        try {
+            Files.createDirectories(runDirectory);
+            // Anything in this job instance's directory the checkpoint does not list was spilled after it.
+            Set<Path> listed = new HashSet<>();
+            for (Run run : runs) {
+                listed.add(run.path.toAbsolutePath());
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(runDirectory, name + "-*.run")) {
+                for (Path file : files) {
+                    if (!listed.contains(file.toAbsolutePath())) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open spill directory " + runDirectory, e);
+        }
+    }
+
+    @Override
+    public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (replayStream == null || tableBytes > heapBudgetBytes) {
+            try {
+                // The last checkpoint is committed by now, so nothing a restart could read refers to these.
+                for (Path retired : retiredRuns) {
+                    Files.deleteIfExists(retired);
+                }
+                spill();
+                retiredRuns = obsoleteRuns;
+                obsoleteRuns = new ArrayList<>();
+            } catch (Exception e) {
+                throw new ItemStreamException("Failed to spill aggregates to " + runDirectory, e);
+            }
+            if (replayStream != null) {
+                replayCheckpoint = new ExecutionContext();
+                replayStream.update(replayCheckpoint);
+            }
+        }
+        if (replayCheckpoint != null) {
+            for (Map.Entry<String, Object> entry : replayCheckpoint.entrySet()) {
+                executionContext.put(entry.getKey(), entry.getValue());
+            }
+        }
+        putRuns(executionContext);
+    }
+
+    private void putRuns(ExecutionContext executionContext) {
+        StringBuilder listed = new StringBuilder();
+        for (Run run : runs) {
+            if (listed.length() > 0) {
+                listed.append(',');
+            }
+            listed.append(run.level).append(':').append(run.path);
+        }
+        executionContext.putString(getRunsKey(), listed.toString());
+        executionContext.putLong(getExecutionContextKey(NEXT_RUN), nextRun);
+    }
+
+    @Override
+    public synchronized void write(List<? extends T> items) throws Exception {
+        for (T item : items) {
+            BigDecimal itemAmount = amount.apply(item);
+            for (Map.Entry<String, Function<? super T, ?>> dimension : dimensions.entrySet()) {
+                Object value = dimension.getValue().apply(item);
+                String key = value == null ? dimension.getKey() : dimension.getKey() + SEPARATOR + value;
+                Accumulator accumulator = table.get(key);
+                if (accumulator == null) {
+                    accumulator = new Accumulator();
+                    table.put(key, accumulator);
+                    tableBytes += ENTRY_OVERHEAD_BYTES + 2L * key.length();
+                }
+                accumulator.add(1, itemAmount);
+            }
+            // With a replay stream the spill waits for the checkpoint, so a run never holds half a chunk.
+            if (replayStream == null && tableBytes > heapBudgetBytes) {
+                spill();
+            }
+        }
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    // Spills what is left once the last chunk has committed; the step saves its context after this.
+    // The step swallows exceptions from afterStep, so a failed spill fails the step here instead:
+    // its promotion listeners, registered ahead of it, see the FAILED exit status and promote
+    // nothing, the job stops before the merge, and a restart replays from the last checkpoint.
+    @Override
+    public synchronized ExitStatus afterStep(StepExecution stepExecution) {
+        if (stepExecution.getStatus() == BatchStatus.COMPLETED && !table.isEmpty()) {
+            try {
+                spill();
+            } catch (Exception e) {
+                ItemStreamException failure = new ItemStreamException("Failed to spill aggregates to " + runDirectory, e);
+                stepExecution.setStatus(BatchStatus.FAILED);
+                stepExecution.addFailureException(failure);
+                stepExecution.setExitStatus(ExitStatus.FAILED.addExitDescription(failure));
+                return ExitStatus.FAILED;
+            }
+            putRuns(stepExecution.getExecutionContext());
+        }
+        return null;
+    }
+
+    private void spill() throws Exception {
+        if (table.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(table.keySet());
+        Collections.sort(keys);
+        Path path = nextRunPath();
+        try (RunWriter writer = new RunWriter(path)) {
+            for (String key : keys) {
+                Accumulator accumulator = table.get(key);
+                writer.write(key, accumulator.count, accumulator.sum);
+            }
+        }
+        table.clear();
+        tableBytes = 0;
+        runs.add(new Run(path, 0));
+        compact();
+    }
+
+    // Tiered merging: once mergeFactor runs share a tier, they become one run in the tier above.
+    private void compact() throws Exception {
+        for (int level = 0; ; level++) {
+            List<Run> tier = new ArrayList<>();
+            for (Run run : runs) {
+                if (run.level == level) {
+                    tier.add(run);
+                }
+            }
+            if (tier.isEmpty() && level > maxLevel()) {
+                return;
+            }
+            if (tier.size() < mergeFactor) {
+                continue;
+            }
+            List<Path> paths = new ArrayList<>();
+            for (Run run : tier) {
+                paths.add(run.path);
+            }
+            Path merged = nextRunPath();
+            try (RunWriter writer = new RunWriter(merged)) {
+                merge(paths, writer::write);
+            }
+            runs.removeAll(tier);
+            runs.add(new Run(merged, level + 1));
+            obsoleteRuns.addAll(paths);
+        }
+    }
+
+    private int maxLevel() {
+        int max = 0;
+        for (Run run : runs) {
+            max = Math.max(max, run.level);
+        }
+        return max;
+    }
+
+    private Path nextRunPath() {
+        return runDirectory.resolve(name + "-" + nextRun++ + ".run");
+    }
+
+    static List<Path> parseRuns(String runs) {
+        List<Path> paths = new ArrayList<>();
+        for (String run : runs.split(",")) {
+            if (!run.isEmpty()) {
+                paths.add(Paths.get(run.substring(run.indexOf(':') + 1)));
+            }
+        }
+        return paths;
+    }
+
+    static String dimension(String key) {
+        int separator = key.indexOf(SEPARATOR);
+        return separator < 0 ? key : key.substring(0, separator);
+    }
+
+    static String value(String key) {
+        int separator = key.indexOf(SEPARATOR);
+        return separator < 0 ? null : key.substring(separator + 1);
+    }
+
+    interface AggregateSink {
+
+        void accept(String key, long count, BigDecimal sum) throws Exception;
+    }
+
+    // K-way merge of sorted runs, combining the entries that share a key.
+    static void merge(List<Path> paths, AggregateSink sink) throws Exception {
+        PriorityQueue<RunReader> heads = new PriorityQueue<>((a, b) -> a.key.compareTo(b.key));
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (Path path : paths) {
+                RunReader reader = new RunReader(path);
+                readers.add(reader);
+                if (reader.next()) {
+                    heads.add(reader);
+                }
+            }
+            while (!heads.isEmpty()) {
+                RunReader head = heads.poll();
+                String key = head.key;
+                long count = head.count;
+                BigDecimal sum = head.sum;
+                if (head.next()) {
+                    heads.add(head);
+                }
+                while (!heads.isEmpty() && heads.peek().key.equals(key)) {
+                    RunReader same = heads.poll();
+                    count += same.count;
+                    sum = sum.add(same.sum);
+                    if (same.next()) {
+                        heads.add(same);
+                    }
+                }
+                sink.accept(key, count, sum);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private static class Accumulator {
+
+        private long count;
+
+        private BigDecimal sum = BigDecimal.ZERO;
+
+        private void add(long count, BigDecimal amount) {
+            this.count += count;
+            if (amount != null) {
+                this.sum = this.sum.add(amount);
+            }
+        }
+    }
+
+    private static class Run {
+
+        private final Path path;
+
+        private final int level;
+
+        private Run(Path path, int level) {
+            this.path = path;
+            this.level = level;
+        }
+    }
+
+    private static class RunWriter implements Closeable {
+
+        private final FileOutputStream file;
+
+        private final DataOutputStream out;
+
+        private RunWriter(Path path) throws IOException {
+            this.file = new FileOutputStream(path.toFile());
+            this.out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+        }
+
+        private void write(String key, long count, BigDecimal sum) throws IOException {
+            out.writeUTF(key);
+            out.writeLong(count);
+            out.writeInt(sum.scale());
+            byte[] unscaled = sum.unscaledValue().toByteArray();
+            out.writeShort(unscaled.length);
+            out.write(unscaled);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.flush();
+                // The run must be on disk before a checkpoint can name it.
+                file.getFD().sync();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static class RunReader implements Closeable {
+
+        private final DataInputStream in;
+
+        private String key;
+
+        private long count;
+
+        private BigDecimal sum;
+
+        private RunReader(Path path) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+        }
+
+        private boolean next() throws IOException {
+            try {
+                key = in.readUTF();
+            } catch (EOFException e) {
+                return false;
+            }
+            count = in.readLong();
+            int scale = in.readInt();
+            byte[] unscaled = new byte[in.readUnsignedShort()];
+            in.readFully(unscaled);
+            sum = new BigDecimal(new BigInteger(unscaled), scale);
+            return true;
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.linkedin.batch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// A broker-free channel on a shared directory. Every state change is an atomic rename, so
+// any number of worker JVMs on one host (or on a shared filesystem with atomic rename) can compete
+// for requests: pending/<job>-<step>-<generation>.partition is claimed by renaming it into claimed/
+// with the worker id appended, kept alive by touching it, and deleted when the worker is done. An
+// expired claim goes back to pending under the next generation, so the worker that lost it, even if
+// it claims the request again, finds its own claim gone on its next heartbeat. While a worker runs a
+// step it also touches running/<job>-<step>.<worker>, whatever the generation, until the step returns.
+public class SpoolDirectoryPartitionChannel implements PartitionChannel {
+
+    private static final String SUFFIX = ".partition";
+
+    private final Path pending;
+
+    private final Path claimed;
+
+    private final Path running;
+
+    public SpoolDirectoryPartitionChannel(Path directory) {
+        this.pending = directory.resolve("pending");
+        this.claimed = directory.resolve("claimed");
+        this.running = directory.resolve("running");
+        try {
+            Files.createDirectories(pending);
+            Files.createDirectories(claimed);
+            Files.createDirectories(running);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create spool directory " + directory, e);
+        }
+    }
+
+    @Override
+    public void send(PartitionRequest request) {
+        String name = fileName(request);
+        try {
+            Path temporary = Files.createTempFile(pending.getParent(), name, ".tmp");
+            Files.write(temporary, request.getStepName().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, pending.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot send " + request, e);
+        }
+    }
+
+    @Override
+    public PartitionRequest claim(String workerId) {
+        try (DirectoryStream<Path> requests = Files.newDirectoryStream(pending, "*" + SUFFIX)) {
+            for (Path request : requests) {
+                Path claim = claimed.resolve(request.getFileName() + "." + workerId);
+                try {
+                    Files.move(request, claim, StandardCopyOption.ATOMIC_MOVE);
+                } catch (NoSuchFileException | FileAlreadyExistsException e) {
+                    // Another worker won this one.
+                    continue;
+                }
+                Files.setLastModifiedTime(claim, FileTime.fromMillis(System.currentTimeMillis()));
+                return read(claim, request.getFileName().toString());
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot claim a partition from " + pending, e);
+        }
+    }
+
+    @Override
+    public void heartbeat(PartitionRequest request, String workerId) {
+        try {
+            Files.setLastModifiedTime(claimed.resolve(fileName(request) + "." + workerId), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lost the claim on " + request, e);
+        }
+    }
+
+    @Override
+    public void acknowledge(PartitionRequest request, String workerId) {
+        try {
+            Files.deleteIfExists(claimed.resolve(fileName(request) + "." + workerId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot acknowledge " + request, e);
+        }
+    }
+
+    @Override
+    public void executionHeartbeat(PartitionRequest request, String workerId) {
+        Path marker = running.resolve(executionName(request) + "." + workerId);
+        try {
+            try {
+                Files.createFile(marker);
+            } catch (FileAlreadyExistsException e) {
+                // Still running from an earlier heartbeat.
+            }
+            Files.setLastModifiedTime(marker, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot record the execution of " + request, e);
+        }
+    }
+
+    @Override
+    public void executionFinished(PartitionRequest request, String workerId) {
+        try {
+            Files.deleteIfExists(running.resolve(executionName(request) + "." + workerId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot record the end of " + request, e);
+        }
+    }
+
+    @Override
+    public long lastExecutionHeartbeat(PartitionRequest request) {
+        long last = 0;
+        try (DirectoryStream<Path> markers = Files.newDirectoryStream(running, executionName(request) + ".*")) {
+            for (Path marker : markers) {
+                try {
+                    last = Math.max(last, Files.getLastModifiedTime(marker).toMillis());
+                } catch (NoSuchFileException e) {
+                    // Finished while we were looking at it.
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot scan " + running, e);
+        }
+        return last;
+    }
+
+    @Override
+    public List<PartitionRequest> reclaimExpired(long heartbeatTimeoutMillis) {
+        List<PartitionRequest> reclaimed = new ArrayList<>();
+        long cutoff = System.currentTimeMillis() - heartbeatTimeoutMillis;
+        try (DirectoryStream<Path> claims = Files.newDirectoryStream(claimed)) {
+            for (Path claim : claims) {
+                String claimName = claim.getFileName().toString();
+                int suffix = claimName.indexOf(SUFFIX);
+                if (suffix < 0) {
+                    continue;
+                }
+                String name = claimName.substring(0, suffix + SUFFIX.length());
+                try {
+                    if (Files.getLastModifiedTime(claim).toMillis() >= cutoff) {
+                        continue;
+                    }
+                    PartitionRequest request = read(claim, name).nextGeneration();
+                    Files.move(claim, pending.resolve(fileName(request)), StandardCopyOption.ATOMIC_MOVE);
+                    reclaimed.add(request);
+                } catch (NoSuchFileException e) {
+                    // Acknowledged while we were looking at it.
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot scan " + claimed, e);
+        }
+        return reclaimed;
+    }
+
+    private static String executionName(PartitionRequest request) {
+        return request.getJobExecutionId() + "-" + request.getStepExecutionId();
+    }
+
+    private static String fileName(PartitionRequest request) {
+        return request.getJobExecutionId() + "-" + request.getStepExecutionId() + "-" + request.getGeneration() + SUFFIX;
+    }
+
+    private static PartitionRequest read(Path file, String name) throws IOException {
+        String[] ids = name.substring(0, name.length() - SUFFIX.length()).split("-");
+        String stepName = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        int generation = ids.length > 2 ? Integer.parseInt(ids[2]) : 0;
+        return new PartitionRequest(Long.parseLong(ids[0]), Long.parseLong(ids[1]), stepName, generation);
+    }
+}
@@ -0,0 +1,282 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs read, process and write as separate stages joined by bounded queues of chunks, so the reader
+// keeps the database busy while processor threads use the cores and the writer does its I/O. Reader
+// and processor stages run on their own threads from open() on; a full queue blocks the stage feeding
+// it, which pushes back all the way to the reader. The write stage is the step itself: each execute()
+// writes one processed chunk inside the step's chunk transaction, so the commit, the checkpoint and
+// the write count move one chunk at a time. More writer threads come from the step's taskExecutor.
+// The reader's process and write listener callbacks are made here as a chunk-oriented step would
+// make them, all from execute() inside the chunk's transaction, including afterProcess for the items
+// the processor threads filtered. KeysetPrefetchingOrderItemReader only counts those items as done
+// once that transaction commits, so a checkpoint saved by one writer thread never covers a chunk
+// another writer thread may still roll back.
+// With a RetryTemplate each item's processing is retried on its processor thread, as a fault-tolerant
+// step retries it; a failure the template gives up on fails the step.
+// Register the tasklet as a stream of its step; it opens, updates and closes the reader and writer.
+public class StagedPipelineTasklet<I, O> implements Tasklet, ItemStream {
+
+    private final ItemReader<? extends I> reader;
+
+    private final ItemProcessor<? super I, ? extends O> processor;
+
+    private final ItemWriter<? super O> writer;
+
+    private int chunkSize = 1000;
+
+    private int readerThreads = 1;
+
+    private int processorThreads = 4;
+
+    private int queueCapacity = 4;
+
+    private RetryTemplate retryTemplate;
+
+    private BlockingQueue<Chunk<I, O>> readQueue;
+
+    private BlockingQueue<Chunk<I, O>> writeQueue;
+
+    private final List<Thread> stages = new ArrayList<>();
+
+    private volatile Throwable failure;
+
+    public StagedPipelineTasklet(ItemReader<? extends I> reader, ItemProcessor<? super I, ? extends O> processor,
+            ItemWriter<? super O> writer) {
+        this.reader = reader;
+        this.processor = processor;
+        this.writer = writer;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    // Only raise this for readers that are safe to call from several threads.
+    public void setReaderThreads(int readerThreads) {
+        this.readerThreads = readerThreads;
+    }
+
+    public void setProcessorThreads(int processorThreads) {
+        this.processorThreads = processorThreads;
+    }
+
+    // Chunks each queue holds before the stage feeding it blocks.
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    // Typically the step's retryable exceptions and limit, e.g.
+    // new SimpleRetryPolicy(3, Collections.singletonMap(OrderProcessingException.class, true)).
+    public void setRetryTemplate(RetryTemplate retryTemplate) {
+        this.retryTemplate = retryTemplate;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (reader instanceof ItemStream) {
+            ((ItemStream) reader).open(executionContext);
+        }
+        if (writer instanceof ItemStream) {
+            ((ItemStream) writer).open(executionContext);
+        }
+        this.readQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.failure = null;
+        AtomicInteger runningReaders = new AtomicInteger(readerThreads);
+        AtomicInteger runningProcessors = new AtomicInteger(processorThreads);
+        for (int i = 0; i < readerThreads; i++) {
+            start("pipeline-read-" + i, () -> read(runningReaders));
+        }
+        for (int i = 0; i < processorThreads; i++) {
+            start("pipeline-process-" + i, () -> process(runningProcessors));
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (reader instanceof ItemStream) {
+            ((ItemStream) reader).update(executionContext);
+        }
+        if (writer instanceof ItemStream) {
+            ((ItemStream) writer).update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        for (Thread stage : stages) {
+            stage.interrupt();
+        }
+        try {
+            for (Thread stage : stages) {
+                stage.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stages.clear();
+            if (reader instanceof ItemStream) {
+                ((ItemStream) reader).close();
+            }
+            if (writer instanceof ItemStream) {
+                ((ItemStream) writer).close();
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        Chunk<I, O> chunk;
+        do {
+            checkFailure();
+            chunk = writeQueue.poll(100, TimeUnit.MILLISECONDS);
+        } while (chunk == null);
+        if (chunk.isEnd()) {
+            // Put back for the other writer threads.
+            writeQueue.put(chunk);
+            return RepeatStatus.FINISHED;
+        }
+        for (int i = 0; i < chunk.inputs.size(); i++) {
+            contribution.incrementReadCount();
+        }
+        contribution.incrementFilterCount(chunk.filtered.size());
+        if (reader instanceof ItemProcessListener) {
+            for (I item : chunk.filtered) {
+                ((ItemProcessListener<I, O>) reader).afterProcess(item, null);
+            }
+        }
+        if (!chunk.outputs.isEmpty()) {
+            if (reader instanceof ItemWriteListener) {
+                ((ItemWriteListener<O>) reader).beforeWrite(chunk.outputs);
+            }
+            writer.write(chunk.outputs);
+            contribution.incrementWriteCount(chunk.outputs.size());
+            if (reader instanceof ItemWriteListener) {
+                ((ItemWriteListener<O>) reader).afterWrite(chunk.outputs);
+            }
+        }
+        return RepeatStatus.CONTINUABLE;
+    }
+
+    private void read(AtomicInteger runningReaders) throws Exception {
+        boolean exhausted = false;
+        while (!exhausted) {
+            List<I> items = new ArrayList<>(chunkSize);
+            while (items.size() < chunkSize) {
+                I item = reader.read();
+                if (item == null) {
+                    exhausted = true;
+                    break;
+                }
+                items.add(item);
+            }
+            if (!items.isEmpty()) {
+                readQueue.put(new Chunk<>(items, new ArrayList<>(items.size())));
+            }
+        }
+        // The last reader out tells every processor there is nothing more to come. A failed stage
+        // sends no end marker, so the writers stop on the failure instead of finishing early.
+        if (runningReaders.decrementAndGet() == 0) {
+            for (int i = 0; i < processorThreads; i++) {
+                readQueue.put(Chunk.end());
+            }
+        }
+    }
+
+    private void process(AtomicInteger runningProcessors) throws Exception {
+        Chunk<I, O> chunk;
+        while (!(chunk = readQueue.take()).isEnd()) {
+            for (I item : chunk.inputs) {
+                O result = retryTemplate == null ? processor.process(item)
+                        : retryTemplate.execute((RetryCallback<O, Exception>) context -> processor.process(item));
+                if (result != null) {
+                    chunk.outputs.add(result);
+                } else {
+                    chunk.filtered.add(item);
+                }
+            }
+            writeQueue.put(chunk);
+        }
+        if (runningProcessors.decrementAndGet() == 0) {
+            writeQueue.put(Chunk.end());
+        }
+    }
+
+    private void start(String name, Stage stage) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                if (failure == null) {
+                    failure = t;
+                }
+            }
+        }, name);
+        thread.setDaemon(true);
+        stages.add(thread);
+        thread.start();
+    }
+
+    private void checkFailure() throws Exception {
+        Throwable t = failure;
+        if (t instanceof Exception) {
+            throw (Exception) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+    }
+
+    private interface Stage {
+
+        void run() throws Exception;
+    }
+
+    private static class Chunk<I, O> {
+
+        private final List<I> inputs;
+
+        private final List<O> outputs;
+
+        // Inputs the processor filtered, reported to the reader from the write stage.
+        private final List<I> filtered = new ArrayList<>();
+
+        private Chunk(List<I> inputs, List<O> outputs) {
+            this.inputs = inputs;
+            this.outputs = outputs;
+        }
+
+        private static <I, O> Chunk<I, O> end() {
+            return new Chunk<>(null, null);
+        }
+
+        private boolean isEnd() {
+            return inputs == null;
+        }
+    }
+}
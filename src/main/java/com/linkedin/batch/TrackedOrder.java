@@ -1,17 +1,30 @@
 package com.linkedin.batch;
 
-import org.springframework.beans.BeanUtils;
+import java.math.BigDecimal;
 
 public class TrackedOrder extends Order {
     private String trackingNumber;
 
     private boolean freeShipping;
 
+    private BigDecimal weight;
+
+    private String warehouse;
+
+    private String shippingClass;
+
     public TrackedOrder() {
     }
 
     public TrackedOrder(Order order) {
-        BeanUtils.copyProperties(order, this);
+        setOrderId(order.getOrderId());
+        setFirstName(order.getFirstName());
+        setLastName(order.getLastName());
+        setEmail(order.getEmail());
+        setCost(order.getCost());
+        setItemId(order.getItemId());
+        setItemName(order.getItemName());
+        setShipDate(order.getShipDate());
     }
 
     public String getTrackingNumber() {
@@ -29,4 +42,28 @@ public class TrackedOrder extends Order {
     public void setFreeShipping(boolean freeShipping) {
         this.freeShipping = freeShipping;
     }
+
+    public BigDecimal getWeight() {
+        return weight;
+    }
+
+    public void setWeight(BigDecimal weight) {
+        this.weight = weight;
+    }
+
+    public String getWarehouse() {
+        return warehouse;
+    }
+
+    public void setWarehouse(String warehouse) {
+        this.warehouse = warehouse;
+    }
+
+    public String getShippingClass() {
+        return shippingClass;
+    }
+
+    public void setShippingClass(String shippingClass) {
+        this.shippingClass = shippingClass;
+    }
 }
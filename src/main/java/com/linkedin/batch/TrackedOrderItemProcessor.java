@@ -1,25 +1,44 @@
 package com.linkedin.batch;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.batch.item.ItemProcessor;
 
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class TrackedOrderItemProcessor implements ItemProcessor<Order, TrackedOrder> {
 
+    private static final Logger logger = LoggerFactory.getLogger(TrackedOrderItemProcessor.class);
+
+    private final TrackingNumberGenerator trackingNumberGenerator;
+
+    private double failureRate = .03;
+
+    public TrackedOrderItemProcessor() {
+        this(new UuidTrackingNumberGenerator());
+    }
+
+    public TrackedOrderItemProcessor(TrackingNumberGenerator trackingNumberGenerator) {
+        this.trackingNumberGenerator = trackingNumberGenerator;
+    }
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
     @Override
     public TrackedOrder process(Order order) throws Exception {
-        System.out.println("Processing order with id: " + order.getOrderId());
-        System.out.println("Processing with thread " + Thread.currentThread().getName());
+        logger.debug("Processing order with id: {} on thread {}", order.getOrderId(), Thread.currentThread().getName());
 
         TrackedOrder trackedOrder = new TrackedOrder(order);
-        trackedOrder.setTrackingNumber(this.getTrackingNumber());
+        trackedOrder.setTrackingNumber(this.getTrackingNumber(order));
         return trackedOrder;
     }
 
-    private String getTrackingNumber() throws OrderProcessingException {
-        if (Math.random() < .03) {
+    private String getTrackingNumber(Order order) throws OrderProcessingException {
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
             throw new OrderProcessingException();
         }
-        return UUID.randomUUID().toString();
+        return trackingNumberGenerator.generate(order);
     }
 }
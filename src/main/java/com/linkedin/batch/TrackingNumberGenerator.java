@@ -0,0 +1,12 @@
+package com.linkedin.batch;
+
+public interface TrackingNumberGenerator {
+
+    String generate(Order order);
+
+    default String generate(long orderId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        return generate(order);
+    }
+}
@@ -0,0 +1,21 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.ItemProcessor;
+
+public class TrackingOrderBatchProcessor implements ItemProcessor<OrderBatch, OrderBatch> {
+
+    private final TrackingNumberGenerator trackingNumberGenerator;
+
+    public TrackingOrderBatchProcessor(TrackingNumberGenerator trackingNumberGenerator) {
+        this.trackingNumberGenerator = trackingNumberGenerator;
+    }
+
+    @Override
+    public OrderBatch process(OrderBatch batch) {
+        for (int i = 0; i < batch.selectedCount(); i++) {
+            int row = batch.selected(i);
+            batch.setTrackingNumber(row, trackingNumberGenerator.generate(batch.orderId(row)));
+        }
+        return batch;
+    }
+}
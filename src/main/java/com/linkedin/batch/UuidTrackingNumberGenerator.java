@@ -0,0 +1,11 @@
+package com.linkedin.batch;
+
+import java.util.UUID;
+
+public class UuidTrackingNumberGenerator implements TrackingNumberGenerator {
+
+    @Override
+    public String generate(Order order) {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.linkedin.batch;
+
+import org.springframework.batch.item.ItemProcessor;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+public class ValidatingOrderBatchProcessor implements ItemProcessor<OrderBatch, OrderBatch> {
+
+    private final String[] properties;
+
+    private final Predicate<Object>[][] checks;
+
+    public ValidatingOrderBatchProcessor() {
+        this(Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @SuppressWarnings("unchecked")
+    public ValidatingOrderBatchProcessor(Validator validator) {
+        Map<String, List<Predicate<Object>>> constraints = CompiledValidatingItemProcessor.compileConstraints(validator, Order.class);
+        if (constraints == null) {
+            throw new IllegalStateException("Constraints on " + Order.class.getName()
+                    + " cannot be compiled for batch validation; use CompiledValidatingItemProcessor per item");
+        }
+        this.properties = constraints.keySet().toArray(new String[0]);
+        this.checks = new Predicate[properties.length][];
+        for (int i = 0; i < properties.length; i++) {
+            checks[i] = constraints.get(properties[i]).toArray(new Predicate[0]);
+        }
+    }
+
+    @Override
+    public OrderBatch process(OrderBatch batch) {
+        boolean[] valid = new boolean[batch.selectedCount()];
+        Arrays.fill(valid, true);
+        // Column at a time: each check runs down one typed column instead of looking up every cell.
+        for (int p = 0; p < properties.length; p++) {
+            for (Predicate<Object> check : checks[p]) {
+                batch.test(properties[p], check, valid);
+            }
+        }
+        batch.retain(valid);
+        return batch.selectedCount() == 0 ? null : batch;
+    }
+}
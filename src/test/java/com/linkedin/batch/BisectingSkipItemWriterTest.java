@@ -0,0 +1,161 @@
+package com.linkedin.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.job.SimpleJob;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.step.skip.LimitCheckingItemSkipPolicy;
+import org.springframework.batch.core.step.tasklet.TaskletStep;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs the writer in a real chunk step over H2: the delegate fails synchronously on a check
+// constraint, attempts roll back to savepoints and skips land on the chunk's contribution.
+class BisectingSkipItemWriterTest {
+
+    private EmbeddedDatabase dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private DataSourceTransactionManager transactionManager;
+
+    private JobRepository jobRepository;
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private final List<Integer> skipped = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("/org/springframework/batch/core/schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table ITEM (id int primary key, item_value int not null check (item_value >= 0))");
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setTransactionManager(transactionManager);
+        factory.afterPropertiesSet();
+        jobRepository = factory.getObject();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void bisectsFailedChunksAndCountsSkippedItems() throws Exception {
+        // Chunk one fails on its sixth item, chunk two on its third and fourth.
+        StepExecution stepExecution = run(5, items(6, 11, 12));
+
+        assertEquals(BatchStatus.COMPLETED, stepExecution.getStatus());
+        // Each chunk: the whole chunk, then 5 halves and single items instead of 8 one-item writes.
+        assertEquals(12, attempts.get());
+        assertEquals(3, stepExecution.getWriteSkipCount());
+        assertEquals(13, stepExecution.getWriteCount());
+        assertEquals(Arrays.asList(-6, -11, -12), skipped);
+        assertEquals(13, rows());
+    }
+
+    @Test
+    void dropsTheSkipsOfARolledBackChunk() throws Exception {
+        // Chunk two skips its third item, then passes the limit on its fourth and rolls back.
+        StepExecution stepExecution = run(2, items(6, 11, 12));
+
+        assertEquals(BatchStatus.FAILED, stepExecution.getStatus());
+        assertEquals(1, stepExecution.getRollbackCount());
+        assertEquals(1, stepExecution.getWriteSkipCount());
+        assertEquals(7, stepExecution.getWriteCount());
+        assertEquals(7, rows());
+    }
+
+    // 1..16 with the given values negated, which the check constraint rejects.
+    private static List<Integer> items(Integer... bad) {
+        List<Integer> badValues = Arrays.asList(bad);
+        List<Integer> items = new ArrayList<>();
+        for (int i = 1; i <= 16; i++) {
+            items.add(badValues.contains(i) ? -i : i);
+        }
+        return items;
+    }
+
+    private StepExecution run(int skipLimit, List<Integer> items) throws Exception {
+        ItemWriter<Integer> delegate = chunk -> {
+            attempts.incrementAndGet();
+            jdbcTemplate.batchUpdate("insert into ITEM (id, item_value) values (?, ?)", chunk, chunk.size(),
+                    (ps, value) -> {
+                        ps.setInt(1, Math.abs(value));
+                        ps.setInt(2, value);
+                    });
+        };
+        BisectingSkipItemWriter<Integer> writer = new BisectingSkipItemWriter<>(delegate);
+        writer.setDataSource(dataSource);
+        writer.setSkipPolicy(new LimitCheckingItemSkipPolicy(skipLimit,
+                Collections.singletonMap(DataIntegrityViolationException.class, true)));
+        writer.setSkipListeners(Collections.singletonList(new SkipListener<Object, Integer>() {
+            @Override
+            public void onSkipInRead(Throwable t) {
+            }
+
+            @Override
+            public void onSkipInWrite(Integer item, Throwable t) {
+                skipped.add(item);
+            }
+
+            @Override
+            public void onSkipInProcess(Object item, Throwable t) {
+            }
+        }));
+
+        TaskletStep step = new StepBuilderFactory(jobRepository, transactionManager).get("bisectingStep")
+                .<Integer, Integer>chunk(8)
+                .reader(new ListItemReader<>(items))
+                .writer(writer)
+                .build();
+        SimpleJob job = new SimpleJob("bisectingJob");
+        job.setJobRepository(jobRepository);
+        job.addStep(BisectingSkipItemWriter.recordContributions(step));
+
+        SimpleJobLauncher jobLauncher = new SimpleJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.afterPropertiesSet();
+        JobLauncherTestUtils jobLauncherTestUtils = new JobLauncherTestUtils();
+        jobLauncherTestUtils.setJobRepository(jobRepository);
+        jobLauncherTestUtils.setJobLauncher(jobLauncher);
+        jobLauncherTestUtils.setJob(job);
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob();
+        return jobExecution.getStepExecutions().iterator().next();
+    }
+
+    private int rows() {
+        return jdbcTemplate.queryForObject("select count(*) from ITEM", Integer.class);
+    }
+}
@@ -0,0 +1,99 @@
+package com.linkedin.batch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Reads a file through the partitioner's ranges and checks that the ranges together read exactly
+// what one reader over the whole file reads, with quoted newlines, escaped quotes, stray quotes in
+// unquoted fields, CRLF and a header.
+class CsvByteRangePartitionerTest {
+
+    private static final String[] ITEM_NAMES = {
+            "Jeans",
+            "\"Shirt, blue\"",
+            "\"Boots\nsize 9\"",
+            "\"Scarf\r\nwool\"",
+            "\"The \"\"Classic\"\" Tee\"",
+            "\"\"\"\nquoted\n\"\"\"",
+            "\"\n\"",
+            "12\" pizza",
+    };
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    private List<String> expected;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder("order_id,first_name,last_name,email,cost,item_id,item_name,ship_date\r\n");
+        for (int i = 1; i <= 500; i++) {
+            csv.append(i).append(",First").append(i).append(",Last,first").append(i).append("@example.com,")
+                    .append(random.nextInt(10000) / 100.0).append(",id-").append(i).append(',')
+                    .append(ITEM_NAMES[random.nextInt(ITEM_NAMES.length)]).append(",2019-0")
+                    .append(1 + random.nextInt(9)).append("-1").append(random.nextInt(10))
+                    .append(random.nextBoolean() ? "\r\n" : "\n");
+        }
+        file = directory.resolve("orders.csv");
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+        expected = read(new ExecutionContext());
+        assertEquals(500, expected.size());
+        assertTrue(expected.stream().anyMatch(order -> order.contains("|The \"Classic\" Tee|")));
+        assertTrue(expected.stream().anyMatch(order -> order.contains("|Scarf\r\nwool|")));
+        assertTrue(expected.stream().anyMatch(order -> order.contains("|12\" pizza|")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 4, 7, 16, 64, 1000})
+    void rangesReadTheFileOnce(int gridSize) throws Exception {
+        List<ExecutionContext> ranges = new ArrayList<>(new CsvByteRangePartitioner(file).partition(gridSize).values());
+        ranges.sort(Comparator.comparingLong(context -> context.getLong(CsvByteRangePartitioner.START_OFFSET)));
+
+        long offset = 0;
+        List<String> actual = new ArrayList<>();
+        for (ExecutionContext range : ranges) {
+            assertEquals(offset, range.getLong(CsvByteRangePartitioner.START_OFFSET));
+            offset = range.getLong(CsvByteRangePartitioner.END_OFFSET);
+            actual.addAll(read(range));
+        }
+        assertEquals(Files.size(file), offset);
+        assertEquals(expected, actual);
+    }
+
+    private List<String> read(ExecutionContext context) throws Exception {
+        MappedCsvOrderItemReader reader = new MappedCsvOrderItemReader();
+        reader.setName("reader");
+        reader.setResource(new FileSystemResource(file));
+        reader.setLinesToSkip(1);
+        reader.open(context);
+        List<String> orders = new ArrayList<>();
+        try {
+            Order order;
+            while ((order = reader.read()) != null) {
+                orders.add(order.getOrderId() + "|" + order.getFirstName() + "|" + order.getCost()
+                        + "|" + order.getItemName() + "|" + order.getShipDate());
+            }
+        } finally {
+            reader.close();
+        }
+        return orders;
+    }
+}
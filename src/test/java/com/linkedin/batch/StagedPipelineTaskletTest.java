@@ -0,0 +1,107 @@
+package com.linkedin.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.job.SimpleJob;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs the pipeline as a multi-threaded tasklet step over TrackedOrderItemProcessor at its default
+// failure rate, which fails some item of nearly every chunk at least once.
+class StagedPipelineTaskletTest {
+
+    private static final int ORDERS = 5000;
+
+    private EmbeddedDatabase dataSource;
+
+    private DataSourceTransactionManager transactionManager;
+
+    private JobRepository jobRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("/org/springframework/batch/core/schema-h2.sql")
+                .build();
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setTransactionManager(transactionManager);
+        factory.afterPropertiesSet();
+        jobRepository = factory.getObject();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void retriesFailedItemsAndCompletes() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        for (long i = 1; i <= ORDERS; i++) {
+            Order order = new Order();
+            order.setOrderId(i);
+            orders.add(order);
+        }
+        Set<Long> written = ConcurrentHashMap.newKeySet();
+        StagedPipelineTasklet<Order, TrackedOrder> tasklet = new StagedPipelineTasklet<>(
+                new ListItemReader<>(orders), new TrackedOrderItemProcessor(),
+                items -> items.forEach(item -> written.add(item.getOrderId())));
+        tasklet.setChunkSize(100);
+        // Five attempts instead of the job's three keep an item from running out of retries
+        // (0.03^5 per item) in any run of this test.
+        RetryTemplate retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(new SimpleRetryPolicy(5, Collections.singletonMap(OrderProcessingException.class, true)));
+        tasklet.setRetryTemplate(retryTemplate);
+
+        SimpleJob job = new SimpleJob("stagedPipelineJob");
+        job.setJobRepository(jobRepository);
+        job.addStep(new StepBuilderFactory(jobRepository, transactionManager).get("stagedPipelineStep")
+                .tasklet(tasklet)
+                .stream(tasklet)
+                .taskExecutor(new SimpleAsyncTaskExecutor())
+                .throttleLimit(2)
+                .build());
+        SimpleJobLauncher jobLauncher = new SimpleJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.afterPropertiesSet();
+        JobLauncherTestUtils jobLauncherTestUtils = new JobLauncherTestUtils();
+        jobLauncherTestUtils.setJobRepository(jobRepository);
+        jobLauncherTestUtils.setJobLauncher(jobLauncher);
+        jobLauncherTestUtils.setJob(job);
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob();
+
+        StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
+        assertEquals(BatchStatus.COMPLETED, stepExecution.getStatus());
+        assertEquals(ORDERS, stepExecution.getReadCount());
+        assertEquals(ORDERS, stepExecution.getWriteCount());
+        assertEquals(ORDERS, written.size());
+    }
+}